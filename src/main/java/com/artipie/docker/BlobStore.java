@@ -41,11 +41,46 @@ public interface BlobStore {
      */
     CompletableFuture<Flow.Publisher<ByteBuffer>> blob(Digest digest);
 
+    /**
+     * Load range of blob data by digest.
+     * Range is truncated if blob ends before it.
+     * @param digest Blob digest
+     * @param offset Range offset in bytes
+     * @param length Range length in bytes
+     * @return Async publisher output
+     */
+    CompletableFuture<Flow.Publisher<ByteBuffer>> blob(Digest digest, long offset, long length);
+
+    /**
+     * Check if blob exists.
+     * @param digest Blob digest
+     * @return Future with true if blob exists
+     */
+    CompletableFuture<Boolean> exists(Digest digest);
+
+    /**
+     * Blob size, e.g. to answer HEAD requests without reading blob data.
+     * @param digest Blob digest
+     * @return Future with size in bytes, fails if blob doesn't exist
+     */
+    CompletableFuture<Long> size(Digest digest);
+
     /**
      * Put data into blob store and calculate its digest.
      * @param blob Data flow
      * @return Future with digest
      */
     CompletableFuture<Digest> put(Flow.Publisher<ByteBuffer> blob);
+
+    /**
+     * Put data into blob store and verify its digest.
+     * Blob is not stored if calculated digest doesn't match expected one.
+     * Wrap the data with {@link com.artipie.docker.misc.LengthCheckedFlow}
+     * to stop reading it as soon as declared length is exceeded.
+     * @param expected Expected digest
+     * @param blob Data flow
+     * @return Future with digest, fails on digest mismatch
+     */
+    CompletableFuture<Digest> put(Digest expected, Flow.Publisher<ByteBuffer> blob);
 }
 
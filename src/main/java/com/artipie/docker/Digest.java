@@ -24,6 +24,9 @@
 
 package com.artipie.docker;
 
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
+
 /**
  * Digest for image layer.
  * @since 0.1
@@ -70,6 +73,21 @@ public interface Digest {
         public String digest() {
             return this.hex;
         }
+
+        @Override
+        public boolean equals(final Object other) {
+            return Digest.FromLink.same(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return Digest.FromLink.hash(this);
+        }
+
+        @Override
+        public String toString() {
+            return String.join(":", this.alg(), this.hex);
+        }
     }
 
     /**
@@ -79,6 +97,14 @@ public interface Digest {
      * by joining algorithm name with hex string using {@code :} as separator.
      * E.g. if algorihm is {@code sha256} and the digest is {@code 0000}, the link will be
      * {@code sha256:0000}.
+     * </p>
+     * <p>
+     * The link is parsed and validated once, on first access.
+     * Algorithm must match {@code [a-z0-9]+([+._-][a-z0-9]+)*} and encoded
+     * part must match {@code [a-zA-Z0-9=_-]+}.
+     * Digests are equal if they have same algorithm and hex, regardless
+     * of implementation, so they can be used as keys.
+     * </p>
      * @since 0.1
      */
     final class FromLink implements Digest {
@@ -88,39 +114,144 @@ public interface Digest {
          */
         private final String link;
 
+        /**
+         * Parsed digest.
+         */
+        private final Unchecked<Digest> parsed;
+
         /**
          * Ctor.
          * @param link Link reference
          */
         public FromLink(final String link) {
             this.link = link;
+            this.parsed = new Unchecked<>(new Solid<>(() -> Digest.FromLink.parse(link)));
         }
 
         @Override
         public String alg() {
-            return this.part(0);
+            return this.parsed.value().alg();
         }
 
         @Override
         public String digest() {
-            return this.part(1);
+            return this.parsed.value().digest();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return Digest.FromLink.same(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return Digest.FromLink.hash(this);
+        }
+
+        @Override
+        public String toString() {
+            return this.link;
         }
 
         /**
-         * Part from input string splitted by {@code :}.
-         * @param pos Part position
-         * @return Part
+         * Check if digest equals to other object.
+         * @param digest Digest
+         * @param other Other object
+         * @return True if other object is digest with same algorithm and hex
          */
-        private String part(final int pos) {
-            final String[] parts = this.link.split(":");
-            if (parts.length != 2) {
+        static boolean same(final Digest digest, final Object other) {
+            final boolean res;
+            if (digest == other) {
+                res = true;
+            } else if (other instanceof Digest) {
+                final Digest that = (Digest) other;
+                res = digest.digest().equals(that.digest()) && digest.alg().equals(that.alg());
+            } else {
+                res = false;
+            }
+            return res;
+        }
+
+        /**
+         * Hash code of digest.
+         * @param digest Digest
+         * @return Hash code
+         */
+        static int hash(final Digest digest) {
+            // @checkstyle MagicNumberCheck (1 line)
+            return 31 * digest.alg().hashCode() + digest.digest().hashCode();
+        }
+
+        /**
+         * Parse and validate link without regular expressions and splitting.
+         * @param link Link
+         * @return Parsed digest
+         */
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        private static Digest parse(final String link) {
+            final int sep = link.indexOf(':');
+            if (sep < 0 || link.indexOf(':', sep + 1) >= 0) {
                 throw new IllegalStateException(
                     String.format(
-                        "Broken link, expected two parts separated by `:`, but was %s", this.link
+                        "Broken link, expected two parts separated by `:`, but was %s", link
                     )
                 );
             }
-            return parts[pos];
+            boolean valid = sep > 0 && sep < link.length() - 1;
+            boolean delim = true;
+            for (int pos = 0; valid && pos < sep; ++pos) {
+                final char chr = link.charAt(pos);
+                final boolean alnum = chr >= 'a' && chr <= 'z' || chr >= '0' && chr <= '9';
+                valid = alnum || !delim && (chr == '+' || chr == '.' || chr == '_' || chr == '-');
+                delim = !alnum;
+            }
+            valid = valid && !delim;
+            for (int pos = sep + 1; valid && pos < link.length(); ++pos) {
+                final char chr = link.charAt(pos);
+                valid = chr >= 'a' && chr <= 'z' || chr >= 'A' && chr <= 'Z'
+                    || chr >= '0' && chr <= '9' || chr == '=' || chr == '_' || chr == '-';
+            }
+            if (!valid) {
+                throw new IllegalStateException(String.format("Invalid digest: %s", link));
+            }
+            return new Digest.FromLink.Parts(link.substring(0, sep), link.substring(sep + 1));
+        }
+
+        /**
+         * Parsed digest parts.
+         * @since 0.2
+         */
+        private static final class Parts implements Digest {
+
+            /**
+             * Algorithm.
+             */
+            private final String name;
+
+            /**
+             * Hex.
+             */
+            private final String hex;
+
+            /**
+             * Ctor.
+             * @param name Algorithm
+             * @param hex Hex
+             */
+            Parts(final String name, final String hex) {
+                this.name = name;
+                this.hex = hex;
+            }
+
+            @Override
+            public String alg() {
+                return this.name;
+            }
+
+            @Override
+            public String digest() {
+                return this.hex;
+            }
         }
     }
 }
@@ -24,6 +24,9 @@
 
 package com.artipie.docker;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Docker registry storage main object.
  * @see com.artipie.docker.asto.AstoDocker
@@ -43,4 +46,12 @@ public interface Docker {
      * @return Blob store for this registry
      */
     BlobStore blobStore();
+
+    /**
+     * Page of repository names in lexical order.
+     * @param last Last name of previous page, empty string for first page
+     * @param limit Max number of names in page
+     * @return Future with repository names following last one
+     */
+    CompletableFuture<List<String>> catalog(String last, int limit);
 }
@@ -26,6 +26,8 @@ package com.artipie.docker;
 
 import com.artipie.docker.ref.ManifestRef;
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
 
 /**
@@ -43,9 +45,18 @@ public interface Repo {
      * </p>
      * @param alg Digest algorithm
      * @param digest Digest hex string
-     * @return Digest of layer blob
+     * @return Future with digest of layer blob, fails if layer is not linked
      */
-    Digest layer(String alg, String digest);
+    CompletableFuture<Digest> layer(String alg, String digest);
+
+    /**
+     * Mount existing blob into the repository without copying its data.
+     * Only layer link is written, see {@link #layer(String, String)}.
+     * @param digest Blob digest
+     * @return Future which completes when blob is mounted,
+     *  fails if blob doesn't exist
+     */
+    CompletableFuture<Void> mount(Digest digest);
 
     /**
      * Resolve docker image manifest file by reference link.
@@ -53,4 +64,38 @@ public interface Repo {
      * @return Flow with manifest data
      */
     Flow.Publisher<ByteBuffer> manifest(ManifestRef link);
+
+    /**
+     * Push docker image manifest.
+     * <p>
+     * Manifest is saved as a blob and linked into revision store. If reference
+     * is a tag, tag index entry is written and tag current link is updated
+     * at last by single write, so readers see either previous or new manifest.
+     * If reference is a digest, it should match manifest digest.
+     * Push fails if manifest refers to blobs or manifests which are not
+     * linked into the repository.
+     * </p>
+     * @param link Manifest reference link
+     * @param manifest Manifest data
+     * @return Future with manifest digest
+     */
+    CompletableFuture<Digest> putManifest(ManifestRef link, Flow.Publisher<ByteBuffer> manifest);
+
+    /**
+     * Page of repository tags in lexical order.
+     * @param last Last tag of previous page, empty string for first page
+     * @param limit Max number of tags in page
+     * @return Future with tags following last one
+     */
+    CompletableFuture<List<String>> tags(String last, int limit);
+
+    /**
+     * Blob uploads of the repository.
+     * <p>
+     * uploadDataPathSpec:
+     * <code>repositories/&lt;name&gt;/_uploads/&lt;id&gt;</code>
+     * </p>
+     * @return Uploads
+     */
+    Uploads uploads();
 }
@@ -24,7 +24,10 @@
 
 package com.artipie.docker;
 
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.cactoos.scalar.Solid;
+import org.cactoos.scalar.Unchecked;
 
 /**
  * Docker repository name.
@@ -62,21 +65,15 @@ public interface RepoName {
      */
     final class Valid implements RepoName {
 
-        /**
-         * Repository name part pattern.
-         */
-        private static final Pattern PART_PTN =
-            Pattern.compile("[a-z0-9]+(?:[._-][a-z0-9]+)*");
-
         /**
          * Repository name max length.
          */
         private static final int MAX_NAME_LEN = 256;
 
         /**
-         * Source string.
+         * Validated name.
          */
-        private final RepoName origin;
+        private final Unchecked<String> valid;
 
         /**
          * Ctor.
@@ -91,13 +88,27 @@ public interface RepoName {
          * @param origin Origin repo name
          */
         public Valid(final RepoName origin) {
-            this.origin = origin;
+            this.valid = new Unchecked<>(
+                new Solid<>(() -> RepoName.Valid.validate(origin.value()))
+            );
         }
 
         @Override
-        @SuppressWarnings("PMD.CyclomaticComplexity")
         public String value() {
-            final String src = this.origin.value();
+            return this.valid.value();
+        }
+
+        /**
+         * Validate name string.
+         * <p>
+         * Scans the string once, without splitting it and using
+         * regular expressions.
+         * </p>
+         * @param src Name string
+         * @return Valid name
+         */
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        private static String validate(final String src) {
             final int len = src.length();
             if (len < 1 || len >= RepoName.Valid.MAX_NAME_LEN) {
                 throw new IllegalStateException(
@@ -112,14 +123,36 @@ public interface RepoName {
                     "repo name can't end with a slash"
                 );
             }
-            final String[] parts = src.split("/");
-            if (parts.length == 0) {
-                throw new IllegalStateException("repo name can't be empty");
-            }
-            for (final String part : parts) {
-                if (!RepoName.Valid.PART_PTN.matcher(part).matches()) {
+            int start = 0;
+            boolean sep = true;
+            for (int pos = 0; pos <= len; ++pos) {
+                final char chr;
+                if (pos == len) {
+                    chr = '/';
+                } else {
+                    chr = src.charAt(pos);
+                }
+                if (chr == '/') {
+                    if (sep) {
+                        throw new IllegalStateException(
+                            String.format(
+                                "invalid repo name part: %s", src.substring(start, pos)
+                            )
+                        );
+                    }
+                    start = pos + 1;
+                    sep = true;
+                } else if (chr >= 'a' && chr <= 'z' || chr >= '0' && chr <= '9') {
+                    sep = false;
+                } else if (!sep && (chr == '.' || chr == '_' || chr == '-')) {
+                    sep = true;
+                } else {
+                    int end = src.indexOf('/', pos);
+                    if (end < 0) {
+                        end = len;
+                    }
                     throw new IllegalStateException(
-                        String.format("invalid repo name part: %s", part)
+                        String.format("invalid repo name part: %s", src.substring(start, end))
                     );
                 }
             }
@@ -127,6 +160,70 @@ public interface RepoName {
         }
     }
 
+    /**
+     * Pool of validated repo names.
+     * <p>
+     * Returns the same validated instance for the same name string,
+     * so each name is validated only once. Number of pooled names is
+     * limited, names above the limit are validated but not pooled.
+     * </p>
+     * @since 0.2
+     */
+    final class Pool {
+
+        /**
+         * Default max number of pooled names.
+         */
+        private static final int MAX = 10_000;
+
+        /**
+         * Pooled names.
+         */
+        private final Map<String, RepoName> names;
+
+        /**
+         * Max number of pooled names.
+         */
+        private final int max;
+
+        /**
+         * Pool with default size.
+         */
+        public Pool() {
+            this(RepoName.Pool.MAX);
+        }
+
+        /**
+         * Ctor.
+         * @param max Max number of pooled names
+         */
+        public Pool(final int max) {
+            this.names = new ConcurrentHashMap<>(0);
+            this.max = max;
+        }
+
+        /**
+         * Validated name.
+         * @param src Name string
+         * @return Repo name
+         * @throws IllegalStateException If name is not valid
+         */
+        public RepoName name(final String src) {
+            RepoName res = this.names.get(src);
+            if (res == null) {
+                res = new RepoName.Valid(src);
+                res.value();
+                if (this.names.size() < this.max) {
+                    final RepoName prev = this.names.putIfAbsent(src, res);
+                    if (prev != null) {
+                        res = prev;
+                    }
+                }
+            }
+            return res;
+        }
+    }
+
     /**
      * Simple repo name. Can be used for tests as fake object.
      * @since 0.1
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Resumable blob upload session.
+ * <p>
+ * Blob data is uploaded by chunks, each chunk is appended at the current
+ * offset of the upload. If connection is lost, client can query the offset
+ * and continue from it instead of uploading the whole blob again.
+ * </p>
+ * @since 0.2
+ */
+public interface Upload {
+
+    /**
+     * Upload id.
+     * @return Id string
+     */
+    String uuid();
+
+    /**
+     * Append chunk of data.
+     * @param offset Offset of the chunk, must be equal to current upload offset
+     * @param chunk Chunk data
+     * @return Future with upload offset after the chunk
+     */
+    CompletableFuture<Long> append(long offset, Flow.Publisher<ByteBuffer> chunk);
+
+    /**
+     * Current offset: size of the data received so far.
+     * @return Future with offset
+     */
+    CompletableFuture<Long> offset();
+
+    /**
+     * Finish the upload: put received data into blob store, link it
+     * to the repository and remove upload data.
+     * @param expected Expected digest of the blob
+     * @return Future with blob digest, fails if digest doesn't match
+     */
+    CompletableFuture<Digest> commit(Digest expected);
+}
@@ -0,0 +1,411 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.misc.BufferPool;
+import com.artipie.docker.misc.Sha256State;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Append chunks to upload data.
+ * <p>
+ * Asto {@link Storage} can't append data to existing value, so
+ * generic implementation keeps each chunk in its own key and concatenates
+ * them on store, file-system implementation appends chunks to single file
+ * and renames it on store. Appends of the same upload should not overlap.
+ * </p>
+ * @since 0.2
+ */
+public interface Append {
+
+    /**
+     * Append chunk to upload data, data after the offset, left by
+     * interrupted append, is dropped.
+     * @param upload Upload key
+     * @param offset Chunk offset
+     * @param chunk Chunk data
+     * @return Future with chunk length
+     */
+    CompletableFuture<Long> append(Key upload, long offset, Flow.Publisher<ByteBuffer> chunk);
+
+    /**
+     * Hash upload data.
+     * @param upload Upload key
+     * @param length Length of upload data
+     * @return Future with hash state of the data
+     */
+    CompletableFuture<Sha256State> hash(Key upload, long length);
+
+    /**
+     * Store upload data by target key, upload data is removed.
+     * @param upload Upload key
+     * @param length Length of upload data
+     * @param target Target key
+     * @return Future which completes when data is stored, fails if received
+     *  data length doesn't match the length
+     */
+    CompletableFuture<Void> store(Key upload, long length, Key target);
+
+    /**
+     * Append by saving each chunk to its own key.
+     * <p>
+     * Chunk is received into <code>parts/&lt;offset&gt;</code> key and moved
+     * to <code>chunks/&lt;offset&gt;-&lt;length&gt;</code> key when its
+     * length is known. Works on any storage, but store is O(data size)
+     * for data of several chunks: chunks are concatenated into
+     * <code>data</code> key, which is moved to the target key.
+     * Data of single chunk is moved without concatenation.
+     * </p>
+     * @since 0.2
+     */
+    final class Chunks implements Append {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Move operation.
+         */
+        private final Move mvr;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         * @param mvr Move operation for the storage
+         */
+        public Chunks(final Storage asto, final Move mvr) {
+            this.asto = asto;
+            this.mvr = mvr;
+        }
+
+        @Override
+        public CompletableFuture<Long> append(final Key upload, final long offset,
+            final Flow.Publisher<ByteBuffer> chunk) {
+            final Key part = new Key.From(upload, "parts", String.valueOf(offset));
+            final AtomicLong length = new AtomicLong();
+            return this.asto.save(
+                part,
+                FlowAdapters.toFlowPublisher(
+                    Flowable.fromPublisher(FlowAdapters.toPublisher(chunk))
+                        .doOnNext(buf -> length.addAndGet(buf.remaining()))
+                )
+            ).thenCompose(
+                none -> this.mvr.move(
+                    part,
+                    new Key.From(
+                        upload, "chunks", String.format("%d-%d", offset, length.get())
+                    )
+                )
+            ).thenApply(none -> length.get());
+        }
+
+        @Override
+        public CompletableFuture<Sha256State> hash(final Key upload, final long length) {
+            return this.chunks(upload, length).thenCompose(
+                chunks -> {
+                    final Sha256State sha = new Sha256State();
+                    final CompletableFuture<Sha256State> res = new CompletableFuture<>();
+                    this.concat(chunks).subscribe(
+                        sha::update, res::completeExceptionally, () -> res.complete(sha)
+                    );
+                    return res;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> store(final Key upload, final long length,
+            final Key target) {
+            return this.chunks(upload, length).thenCompose(
+                chunks -> {
+                    final CompletableFuture<Void> res;
+                    if (chunks.size() == 1) {
+                        res = this.mvr.move(chunks.get(0), target);
+                    } else {
+                        final Key data = new Key.From(upload, "data");
+                        res = this.asto.save(
+                            data, FlowAdapters.toFlowPublisher(this.concat(chunks))
+                        ).thenCompose(none -> this.mvr.move(data, target));
+                    }
+                    return res;
+                }
+            );
+        }
+
+        /**
+         * Data of chunks.
+         * @param chunks Chunk keys
+         * @return Concatenated flow
+         */
+        private Flowable<ByteBuffer> concat(final List<Key> chunks) {
+            return Flowable.fromIterable(chunks).concatMap(
+                key -> SingleInterop.fromFuture(this.asto.value(key))
+                    .flatMapPublisher(FlowAdapters::toPublisher)
+            );
+        }
+
+        /**
+         * Keys of chunks before the length ordered by chunk offset.
+         * Chunks which end after the length could be left by interrupted
+         * append, they are skipped.
+         * @param upload Upload key
+         * @param length Length of upload data
+         * @return Future with chunk keys, fails if chunks are not contiguous
+         *  or their total length doesn't match the length
+         */
+        private CompletableFuture<List<Key>> chunks(final Key upload, final long length) {
+            final CompletableFuture<List<Key>> res;
+            if (length == 0) {
+                res = CompletableFuture.completedFuture(Collections.emptyList());
+            } else {
+                res = this.asto.list(
+                    String.format("%s/", new Key.From(upload, "chunks").string())
+                ).thenApply(
+                    keys -> {
+                        final List<Key> chunks = keys.stream()
+                            .filter(key -> Chunks.end(key) <= length)
+                            .sorted(
+                                Comparator.comparingLong(Chunks::start)
+                                    .thenComparingLong(Chunks::end)
+                            )
+                            .collect(Collectors.toList());
+                        long pos = 0;
+                        for (final Key chunk : chunks) {
+                            if (Chunks.start(chunk) != pos) {
+                                throw new IllegalStateException(
+                                    String.format(
+                                        "Chunk %s doesn't start at %d", chunk.string(), pos
+                                    )
+                                );
+                            }
+                            pos = Chunks.end(chunk);
+                        }
+                        if (pos != length) {
+                            throw new IllegalStateException(
+                                String.format(
+                                    "Upload %s chunks length is %d, but expected %d",
+                                    upload.string(), pos, length
+                                )
+                            );
+                        }
+                        return chunks;
+                    }
+                );
+            }
+            return res;
+        }
+
+        /**
+         * Offset of chunk by chunk key.
+         * @param key Chunk key
+         * @return Offset
+         */
+        private static long start(final Key key) {
+            final String str = key.string();
+            return Long.parseLong(
+                str.substring(str.lastIndexOf('/') + 1, str.lastIndexOf('-'))
+            );
+        }
+
+        /**
+         * End offset of chunk by chunk key.
+         * @param key Chunk key
+         * @return Offset after the last byte of chunk
+         */
+        private static long end(final Key key) {
+            final String str = key.string();
+            return Chunks.start(key) + Long.parseLong(str.substring(str.lastIndexOf('-') + 1));
+        }
+    }
+
+    /**
+     * Append by writing chunks to single file of file-system storage.
+     * <p>
+     * Chunks are written to <code>data</code> file of the upload at their
+     * offsets, so store only renames the file and its cost doesn't depend
+     * on data size. Data is hashed by reading the file into buffers of the
+     * pool, which are released after each buffer is hashed. Should be used
+     * only with {@link com.artipie.asto.fs.FileStorage} with the same
+     * root directory.
+     * </p>
+     * @since 0.2
+     */
+    final class FileSystem implements Append {
+
+        /**
+         * Size of hashed chunk.
+         */
+        private static final int CHUNK = 1024 * 1024;
+
+        /**
+         * Storage root directory.
+         */
+        private final Path root;
+
+        /**
+         * Buffer pool.
+         */
+        private final BufferPool pool;
+
+        /**
+         * Ctor.
+         * @param root Storage root directory
+         */
+        public FileSystem(final Path root) {
+            this(root, new BufferPool());
+        }
+
+        /**
+         * Ctor.
+         * @param root Storage root directory
+         * @param pool Buffer pool
+         */
+        public FileSystem(final Path root, final BufferPool pool) {
+            this.root = root;
+            this.pool = pool;
+        }
+
+        @Override
+        public CompletableFuture<Long> append(final Key upload, final long offset,
+            final Flow.Publisher<ByteBuffer> chunk) {
+            final ChannelWriter writer = new ChannelWriter(
+                this.path(FileSystem.data(upload)), offset, buf -> { }, buf -> { }
+            );
+            chunk.subscribe(writer);
+            return writer.result();
+        }
+
+        @Override
+        public CompletableFuture<Sha256State> hash(final Key upload, final long length) {
+            return CompletableFuture.supplyAsync(
+                () -> {
+                    final Sha256State sha = new Sha256State();
+                    try (FileChannel chan = FileChannel.open(
+                        this.path(FileSystem.data(upload)), StandardOpenOption.READ
+                    )) {
+                        long pos = 0;
+                        while (pos < length) {
+                            final ByteBuffer buf = this.pool.acquire(
+                                (int) Math.min(FileSystem.CHUNK, length - pos)
+                            );
+                            try {
+                                while (buf.hasRemaining()) {
+                                    if (chan.read(buf, pos + buf.position()) < 0) {
+                                        throw new IllegalStateException(
+                                            String.format(
+                                                "Upload %s data is shorter than %d",
+                                                upload.string(), length
+                                            )
+                                        );
+                                    }
+                                }
+                                buf.flip();
+                                pos += buf.remaining();
+                                sha.update(buf);
+                            } finally {
+                                this.pool.release(buf);
+                            }
+                        }
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                    return sha;
+                }
+            );
+        }
+
+        @Override
+        public CompletableFuture<Void> store(final Key upload, final long length,
+            final Key target) {
+            return CompletableFuture.runAsync(
+                () -> {
+                    final Path file = this.path(FileSystem.data(upload));
+                    final Path dest = this.path(target);
+                    try (FileChannel chan = FileChannel.open(
+                        file, StandardOpenOption.CREATE, StandardOpenOption.WRITE
+                    )) {
+                        if (chan.size() < length) {
+                            throw new IllegalStateException(
+                                String.format(
+                                    "Upload %s data length is %d, but expected %d",
+                                    upload.string(), chan.size(), length
+                                )
+                            );
+                        }
+                        chan.truncate(length);
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                    try {
+                        Files.createDirectories(dest.getParent());
+                        Files.move(file, dest, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                }
+            );
+        }
+
+        /**
+         * Path of storage key.
+         * @param key Key
+         * @return Path
+         */
+        private Path path(final Key key) {
+            return Paths.get(this.root.toString(), key.string());
+        }
+
+        /**
+         * Data key of upload.
+         * @param upload Upload key
+         * @return Data key
+         */
+        private static Key data(final Key upload) {
+            return new Key.From(upload, "data");
+        }
+    }
+}
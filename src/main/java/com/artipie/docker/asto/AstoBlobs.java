@@ -26,108 +26,278 @@ package com.artipie.docker.asto;
 
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
-import com.artipie.asto.fs.RxFile;
 import com.artipie.docker.BlobStore;
 import com.artipie.docker.Digest;
+import com.artipie.docker.misc.BytesFlowAs;
+import com.artipie.docker.misc.DigestedFlow;
 import com.artipie.docker.ref.BlobRef;
-import hu.akarnokd.rxjava2.interop.SingleInterop;
-import io.reactivex.Completable;
-import io.reactivex.Single;
-import io.reactivex.internal.operators.flowable.FlowableFromPublisher;
-import java.io.IOException;
+import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
-import org.cactoos.io.BytesOf;
-import org.cactoos.text.HexOf;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import org.reactivestreams.FlowAdapters;
 
 /**
  * Asto {@link BlobStore} implementation.
+ * <p>
+ * Blob data is streamed into the spool, by default into memory for small
+ * blobs and into upload key of the storage for large ones, digest is
+ * calculated on the fly and then spooled data is stored
+ * by the blob key. If blob with the same digest already exists, spooled
+ * data is discarded instead. Blob size is
+ * saved beside the data to <code>size</code> key, so it can be checked
+ * without reading the blob.
+ * </p>
  * @since 0.1
- * @todo #41:30min Refactor this class, make it more readable.
- *  Put method is overcomplicated right now, try to decompose it,
- *  move some logic into new classes or methods.
- * @checkstyle ReturnCountCheck (500 lines)
  */
-@SuppressWarnings("PMD.AvoidDuplicateLiterals")
 public final class AstoBlobs implements BlobStore {
 
+    /**
+     * Max size of blob spooled in memory by default, in bytes.
+     */
+    public static final long SMALL = 4L * 1024 * 1024;
+
     /**
      * Storage.
      */
     private final Storage asto;
 
     /**
-     * Ctor.
+     * Spool of uploaded data.
+     */
+    private final Spool spool;
+
+    /**
+     * Read range operation.
+     */
+    private final ReadRange range;
+
+    /**
+     * Blob store for generic storage.
+     * <p>
+     * Blobs up to {@link #SMALL} bytes, e.g. manifests and configs, are
+     * spooled in memory and written to storage once, by blob key. Larger
+     * blobs are spooled to upload key of the storage and copied to blob
+     * key, generic storage can only truncate upload key after that.
+     * Use {@link #AstoBlobs(Storage, Spool, ReadRange)} to spool them
+     * differently, e.g. to {@link Spool.Directory} with a quota.
+     * </p>
      * @param asto Storage
      */
     public AstoBlobs(final Storage asto) {
+        this(
+            asto,
+            new Spool.BySize(
+                AstoBlobs.SMALL,
+                new Spool.Memory(asto, AstoBlobs.SMALL),
+                new Spool.Uploads(asto, new Move.Copy(asto), new Delete.Truncate(asto))
+            ),
+            new ReadRange.Skip(asto)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param mvr Move operation for this storage
+     * @param del Delete operation for this storage
+     */
+    public AstoBlobs(final Storage asto, final Move mvr, final Delete del) {
+        this(asto, mvr, del, new ReadRange.Skip(asto));
+    }
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param mvr Move operation for this storage
+     * @param del Delete operation for this storage
+     * @param range Read range operation for this storage
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoBlobs(final Storage asto, final Move mvr, final Delete del,
+        final ReadRange range) {
+        this(asto, new Spool.Uploads(asto, mvr, del), range);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param spool Spool of uploaded data, e.g. {@link Spool.BySize}
+     * @param range Read range operation for this storage
+     */
+    public AstoBlobs(final Storage asto, final Spool spool, final ReadRange range) {
         this.asto = asto;
+        this.spool = spool;
+        this.range = range;
     }
 
     @Override
     public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest) {
-        return this.asto.value(
-            new Key.From(
-                RegistryRoot.V2, new BlobRef(digest).string(), "data"
-            )
-        );
+        return this.asto.value(AstoBlobs.data(digest));
+    }
+
+    @Override
+    public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest,
+        final long offset, final long length) {
+        return this.range.read(AstoBlobs.data(digest), offset, length);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(final Digest digest) {
+        return this.asto.exists(AstoBlobs.data(digest));
     }
 
     @Override
-    @SuppressWarnings("PMD.OnlyOneReturn")
     public CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob) {
-        final MessageDigest sha;
-        try {
-            sha = MessageDigest.getInstance("SHA-256");
-        } catch (final NoSuchAlgorithmException err) {
-            throw new IllegalStateException("This runtime doesn't have SHA-256 algorithm", err);
-        }
-        final Path tmp;
-        final FileChannel out;
-        try {
-            tmp = Files.createTempFile(this.getClass().getSimpleName(), ".blob.tmp");
-            out = FileChannel.open(tmp, StandardOpenOption.WRITE);
-        } catch (final IOException err) {
-            return CompletableFuture.failedFuture(err);
-        }
-        return new FlowableFromPublisher<>(FlowAdapters.toPublisher(blob))
-            .flatMapCompletable(
-                buf -> Completable.mergeArray(
-                    Completable.fromAction(
-                        () -> {
-                            buf.mark();
-                            sha.update(buf);
-                            buf.reset();
-                        }
-                    ),
-                    Completable.fromAction(
-                        () -> {
-                            while (buf.hasRemaining()) {
-                                out.write(buf);
-                            }
-                        }
-                    )
-                )
-            ).andThen(Single.fromCallable(() -> new HexOf(new BytesOf(sha.digest())).asString()))
-            .map(Digest.Sha256::new)
-            .cast(Digest.class)
-            .doOnTerminate(out::close)
-            .flatMap(
-                digest -> SingleInterop.fromFuture(
-                    this.asto.save(
-                        new Key.From(RegistryRoot.V2, new BlobRef(digest).string(), "data"),
-                        FlowAdapters.toFlowPublisher(new RxFile(tmp).flow())
-                    ).thenApply(none -> digest)
+        return this.put(blob, Optional.empty());
+    }
+
+    @Override
+    public CompletableFuture<Digest> put(final Digest expected,
+        final Flow.Publisher<ByteBuffer> blob) {
+        return this.put(blob, Optional.of(expected));
+    }
+
+    /**
+     * Put blob data, spooled data is discarded if digest doesn't match.
+     * @param blob Data flow
+     * @param expected Expected digest
+     * @return Future with digest
+     */
+    private CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob,
+        final Optional<Digest> expected) {
+        final DigestedFlow digested = new DigestedFlow(blob);
+        return this.spool.spool(digested).thenCompose(
+            spooled -> digested.digest().thenApply(
+                digest -> {
+                    if (!expected.map(digest::equals).orElse(true)) {
+                        throw new IllegalStateException(
+                            String.format(
+                                "Digest mismatch: expected %s, but was %s",
+                                expected.get(), digest
+                            )
+                        );
+                    }
+                    return digest;
+                }
+            ).handle(
+                (digest, err) -> {
+                    final CompletableFuture<Digest> res;
+                    if (err == null) {
+                        res = this.store(spooled, digest, digested.size());
+                    } else {
+                        res = spooled.discard().handle((none, ignored) -> none)
+                            .thenCompose(none -> CompletableFuture.failedFuture(err));
+                    }
+                    return res;
+                }
+            ).thenCompose(Function.identity())
+        );
+    }
+
+    @Override
+    public CompletableFuture<Long> size(final Digest digest) {
+        final Key meta = AstoBlobs.meta(digest);
+        return this.asto.exists(meta).thenCompose(
+            exists -> {
+                final CompletableFuture<Long> res;
+                if (exists) {
+                    res = this.asto.value(meta)
+                        .thenCompose(pub -> new BytesFlowAs.Text(pub).future())
+                        .thenApply(Long::parseLong);
+                } else {
+                    res = this.count(digest).thenCompose(
+                        size -> AstoBlobs.saveSize(this.asto, digest, size)
+                            .thenApply(none -> size)
+                    );
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Save blob size.
+     * @param asto Storage
+     * @param digest Blob digest
+     * @param size Blob size
+     * @return Future which completes when saved
+     */
+    static CompletableFuture<Void> saveSize(final Storage asto, final Digest digest,
+        final long size) {
+        return asto.save(
+            AstoBlobs.meta(digest),
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap(String.valueOf(size).getBytes(StandardCharsets.UTF_8))
                 )
-            ).doOnTerminate(() -> Files.delete(tmp))
-            .to(SingleInterop.get()).toCompletableFuture();
+            )
+        );
+    }
+
+    /**
+     * Count size of blob data, for blobs saved without size.
+     * @param digest Blob digest
+     * @return Future with size
+     */
+    private CompletableFuture<Long> count(final Digest digest) {
+        return this.blob(digest).thenCompose(
+            pub -> {
+                final AtomicLong total = new AtomicLong();
+                final CompletableFuture<Long> res = new CompletableFuture<>();
+                Flowable.fromPublisher(FlowAdapters.toPublisher(pub)).subscribe(
+                    buf -> total.addAndGet(buf.remaining()),
+                    res::completeExceptionally,
+                    () -> res.complete(total.get())
+                );
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Store spooled data as a blob, if blob doesn't exist yet.
+     * @param spooled Spooled data
+     * @param digest Blob digest
+     * @param size Future with blob size
+     * @return Future with digest
+     */
+    private CompletableFuture<Digest> store(final Spool.Spooled spooled, final Digest digest,
+        final CompletableFuture<Long> size) {
+        return this.exists(digest).thenCompose(
+            exists -> {
+                final CompletableFuture<Void> res;
+                if (exists) {
+                    res = spooled.discard();
+                } else {
+                    res = spooled.store(AstoBlobs.data(digest))
+                        .thenCompose(none -> size)
+                        .thenCompose(len -> AstoBlobs.saveSize(this.asto, digest, len));
+                }
+                return res;
+            }
+        ).thenApply(none -> digest);
+    }
+
+    /**
+     * Blob data key.
+     * @param digest Blob digest
+     * @return Key of blob data
+     */
+    static Key data(final Digest digest) {
+        return new Key.From(RegistryRoot.V2, new BlobRef(digest).string(), "data");
+    }
+
+    /**
+     * Blob size key.
+     * @param digest Blob digest
+     * @return Key of blob size
+     */
+    static Key meta(final Digest digest) {
+        return new Key.From(RegistryRoot.V2, new BlobRef(digest).string(), "size");
     }
 }
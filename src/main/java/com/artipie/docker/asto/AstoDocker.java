@@ -24,11 +24,16 @@
 
 package com.artipie.docker.asto;
 
+import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
 import com.artipie.docker.BlobStore;
 import com.artipie.docker.Docker;
 import com.artipie.docker.Repo;
 import com.artipie.docker.RepoName;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Asto {@link Docker} implementation.
@@ -41,21 +46,116 @@ public final class AstoDocker implements Docker {
      */
     private final Storage asto;
 
+    /**
+     * Move operation for the storage.
+     */
+    private final Move mvr;
+
+    /**
+     * Delete operation for the storage.
+     */
+    private final Delete del;
+
+    /**
+     * Append operation for uploads.
+     */
+    private final Append data;
+
+    /**
+     * Blob store of the storage.
+     */
+    private final BlobStore blobs;
+
+    /**
+     * Caches shared by repositories.
+     */
+    private final Caches cache;
+
     /**
      * Ctor.
      * @param asto Asto storage
      */
     public AstoDocker(final Storage asto) {
+        this(asto, new Move.Copy(asto), new Delete.Truncate(asto), new AstoBlobs(asto));
+    }
+
+    /**
+     * Ctor.
+     * @param asto Asto storage
+     * @param mvr Move operation for the storage
+     * @param del Delete operation for the storage
+     */
+    public AstoDocker(final Storage asto, final Move mvr, final Delete del) {
+        this(asto, mvr, del, new AstoBlobs(asto, mvr, del));
+    }
+
+    /**
+     * Ctor.
+     * @param asto Asto storage
+     * @param mvr Move operation for the storage
+     * @param del Delete operation for the storage
+     * @param blobs Blob store of the storage, e.g. {@link FileSystemBlobs}
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoDocker(final Storage asto, final Move mvr, final Delete del,
+        final BlobStore blobs) {
+        this(asto, mvr, del, new Append.Chunks(asto, mvr), blobs);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Asto storage
+     * @param mvr Move operation for the storage
+     * @param del Delete operation for the storage
+     * @param data Append operation for uploads, e.g. {@link Append.FileSystem}
+     * @param blobs Blob store of the storage, e.g. {@link FileSystemBlobs}
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoDocker(final Storage asto, final Move mvr, final Delete del,
+        final Append data, final BlobStore blobs) {
         this.asto = asto;
+        this.mvr = mvr;
+        this.del = del;
+        this.data = data;
+        this.blobs = blobs;
+        this.cache = new Caches();
     }
 
     @Override
     public Repo repo(final RepoName name) {
-        return new AstoRepo(this.asto, name);
+        return new AstoRepo(this.asto, name, this.cache, this.mvr, this.del, this.data);
     }
 
     @Override
     public BlobStore blobStore() {
-        return new AstoBlobs(this.asto);
+        return this.blobs;
+    }
+
+    @Override
+    public CompletableFuture<List<String>> catalog(final String last, final int limit) {
+        final SortedIndex index = new SortedIndex(
+            this.asto, SortedIndex.CATALOG, this.cache, this.mvr
+        );
+        return index.build(this::listRepos).thenCompose(none -> index.page(last, limit));
+    }
+
+    /**
+     * List all repositories with manifests, it's slow and used only
+     * to build repositories index.
+     * @return Future with repository names, empty if there are no repositories,
+     *  fails if storage fails to list them
+     */
+    private CompletableFuture<Collection<String>> listRepos() {
+        final Key root = new Key.From(RegistryRoot.V2, "repositories");
+        final String prefix = String.format("%s/", root.string());
+        final String marker = "/_manifests/";
+        return new Listing(this.asto, root).keys().<Collection<String>>thenApply(
+            keys -> keys.stream()
+                .map(Key::string)
+                .filter(key -> key.startsWith(prefix) && key.contains(marker))
+                .map(key -> key.substring(prefix.length(), key.indexOf(marker)))
+                .distinct()
+                .collect(Collectors.toList())
+        );
     }
 }
@@ -26,16 +26,27 @@ package com.artipie.docker.asto;
 
 import com.artipie.asto.Key;
 import com.artipie.asto.Storage;
+import com.artipie.docker.BlobStore;
 import com.artipie.docker.Digest;
 import com.artipie.docker.Repo;
 import com.artipie.docker.RepoName;
+import com.artipie.docker.Uploads;
+import com.artipie.docker.misc.BoundedParallel;
 import com.artipie.docker.misc.BytesFlowAs;
 import com.artipie.docker.ref.BlobRef;
 import com.artipie.docker.ref.ManifestRef;
+import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Flow;
 import java.util.concurrent.Flow.Subscriber;
+import java.util.stream.Collectors;
+import org.reactivestreams.FlowAdapters;
 
 /**
  * Asto implementation of {@link Repo}.
@@ -43,6 +54,11 @@ import java.util.concurrent.Flow.Subscriber;
  */
 public final class AstoRepo implements Repo {
 
+    /**
+     * Max number of manifest references checked concurrently.
+     */
+    private static final int VERIFY = 32;
+
     /**
      * Asto storage.
      */
@@ -53,36 +69,295 @@ public final class AstoRepo implements Repo {
      */
     private final RepoName name;
 
+    /**
+     * Repository caches.
+     */
+    private final Caches cache;
+
+    /**
+     * Move operation.
+     */
+    private final Move mvr;
+
+    /**
+     * Delete operation.
+     */
+    private final Delete del;
+
+    /**
+     * Append operation for uploads.
+     */
+    private final Append data;
+
     /**
      * Ctor.
      * @param asto Asto storage
      * @param name Repository name
      */
     public AstoRepo(final Storage asto, final RepoName name) {
+        this(asto, name, new Caches(), new Move.Copy(asto), new Delete.Truncate(asto));
+    }
+
+    /**
+     * Ctor.
+     * @param asto Asto storage
+     * @param name Repository name
+     * @param cache Caches, may be shared between repositories
+     * @param mvr Move operation for the storage
+     * @param del Delete operation for the storage
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoRepo(final Storage asto, final RepoName name, final Caches cache,
+        final Move mvr, final Delete del) {
+        this(asto, name, cache, mvr, del, new Append.Chunks(asto, mvr));
+    }
+
+    /**
+     * Ctor.
+     * @param asto Asto storage
+     * @param name Repository name
+     * @param cache Caches, may be shared between repositories
+     * @param mvr Move operation for the storage
+     * @param del Delete operation for the storage
+     * @param data Append operation for uploads, e.g. {@link Append.FileSystem}
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoRepo(final Storage asto, final RepoName name, final Caches cache,
+        final Move mvr, final Delete del, final Append data) {
         this.asto = asto;
         this.name = name;
+        this.cache = cache;
+        this.mvr = mvr;
+        this.del = del;
+        this.data = data;
+    }
+
+    @Override
+    public CompletableFuture<Digest> layer(final String alg, final String digest) {
+        return this.cache.layers().get(
+            new Key.From(
+                RegistryRoot.V2, "repositories", this.name.value(),
+                "_layers", alg, digest, "link"
+            ).string(),
+            this::link
+        );
     }
 
     @Override
-    public Digest layer(final String alg, final String digest) {
-        throw new UnsupportedOperationException("not implemented");
+    public CompletableFuture<Void> mount(final Digest digest) {
+        return this.asto.exists(AstoBlobs.data(digest)).thenCompose(
+            exists -> {
+                if (!exists) {
+                    throw new IllegalStateException(
+                        String.format("Blob %s doesn't exist", digest)
+                    );
+                }
+                return new LayerLink(this.root(), digest).save(this.asto);
+            }
+        );
     }
 
     @Override
     public Flow.Publisher<ByteBuffer> manifest(final ManifestRef link) {
-        final Key key = new Key.From(
-            RegistryRoot.V2, "repositories", this.name.value(),
-            "_manifests", link.string()
-        );
         return new AstoRepo.PubFromFuture<>(
-            this.asto.value(key)
-            .thenCompose(pub -> new BytesFlowAs.Text(pub).future())
-            .thenApply(Digest.FromLink::new)
-            .thenApply(digest -> new Key.From(new BlobRef(digest), "data"))
-            .thenCompose(blob -> this.asto.value(new Key.From(RegistryRoot.V2, blob.string())))
+            CompletableFuture.completedFuture(link).thenApply(ManifestRef::string).thenCompose(
+                ref -> this.cache.links().get(
+                    new Key.From(
+                        RegistryRoot.V2, "repositories", this.name.value(), "_manifests", ref
+                    ).string(),
+                    this::link
+                )
+            ).thenCompose(this::content).thenApply(
+                buf -> FlowAdapters.toFlowPublisher(Flowable.fromCallable(buf::asReadOnlyBuffer))
+            )
+        );
+    }
+
+    @Override
+    public CompletableFuture<Digest> putManifest(final ManifestRef link,
+        final Flow.Publisher<ByteBuffer> manifest) {
+        return CompletableFuture.completedFuture(link).thenApply(ManifestRef::string).thenCompose(
+            ref -> new BytesFlowAs.Bytes(manifest).future()
+        ).thenCompose(
+            buf -> this.verify(buf).thenCompose(
+                none -> {
+                    final BlobStore blobs = new AstoBlobs(
+                        this.asto, new Spool.Memory(this.asto, buf.remaining()),
+                        new ReadRange.Skip(this.asto)
+                    );
+                    final Flow.Publisher<ByteBuffer> data = FlowAdapters.toFlowPublisher(
+                        Flowable.fromCallable(buf::asReadOnlyBuffer)
+                    );
+                    final CompletableFuture<Digest> blob;
+                    if (link.digest().isPresent()) {
+                        blob = blobs.put(link.digest().get(), data);
+                    } else {
+                        blob = blobs.put(data);
+                    }
+                    return blob;
+                }
+            )
+        ).thenCompose(
+            digest -> new Link(
+                new Key.From(this.root(), "_manifests", new ManifestRef(digest).string()), digest
+            ).save(this.asto).thenCompose(
+                none -> link.tag().map(tag -> this.tag(tag, digest))
+                    .orElseGet(() -> CompletableFuture.completedFuture(null))
+            ).thenCompose(
+                none -> new SortedIndex(this.asto, SortedIndex.CATALOG, this.cache, this.mvr)
+                    .add(this.name.value())
+            ).thenApply(none -> digest)
         );
     }
 
+    @Override
+    public CompletableFuture<List<String>> tags(final String last, final int limit) {
+        final SortedIndex index = this.tagIndex();
+        return index.build(this::listTags).thenCompose(none -> index.page(last, limit));
+    }
+
+    @Override
+    public Uploads uploads() {
+        return new AstoUploads(
+            this.asto, this.root(), this.data, this.del, this.cache.updates()
+        );
+    }
+
+    /**
+     * Manifest data from cache or storage.
+     * @param digest Manifest digest
+     * @return Future with manifest data
+     */
+    private CompletableFuture<ByteBuffer> content(final Digest digest) {
+        final Key key = new Key.From(RegistryRoot.V2, new BlobRef(digest).string(), "data");
+        return this.cache.manifests().get(key.string())
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(
+                () -> this.asto.value(key)
+                    .thenCompose(pub -> new BytesFlowAs.Bytes(pub).future())
+                    .thenApply(
+                        buf -> {
+                            this.cache.manifests().put(
+                                key.string(), Collections.singletonList(buf)
+                            );
+                            return buf;
+                        }
+                    )
+            );
+    }
+
+    /**
+     * Repository root key.
+     * @return Key
+     */
+    private Key root() {
+        return new Key.From(RegistryRoot.V2, "repositories", this.name.value());
+    }
+
+    /**
+     * Verify that all blobs and manifests referenced by manifest are linked
+     * into the repository. Links are checked concurrently.
+     * @param manifest Manifest data
+     * @return Future which fails if some reference is missing
+     */
+    private CompletableFuture<Void> verify(final ByteBuffer manifest) {
+        return new BytesFlowAs.Manifest(
+            FlowAdapters.toFlowPublisher(Flowable.fromCallable(manifest::asReadOnlyBuffer))
+        ).future().thenCompose(
+            view -> {
+                final List<Key> links = new ArrayList<>(
+                    view.blobs().size() + view.manifests().size()
+                );
+                view.blobs().forEach(
+                    digest -> links.add(new LayerLink(this.root(), digest).key())
+                );
+                view.manifests().forEach(
+                    digest -> links.add(
+                        new Key.From(
+                            this.root(), "_manifests", new ManifestRef(digest).string()
+                        )
+                    )
+                );
+                return new BoundedParallel<>(links, AstoRepo.VERIFY).forEach(
+                    key -> this.asto.exists(key).thenAccept(
+                        exists -> {
+                            if (!exists) {
+                                throw new IllegalStateException(
+                                    String.format("Manifest reference is unknown: %s", key.string())
+                                );
+                            }
+                        }
+                    )
+                );
+            }
+        );
+    }
+
+    /**
+     * Point tag to manifest.
+     * <p>
+     * Tag index entry is written first. Then current link is replaced
+     * at once by move operation, so it's never seen half-written.
+     * </p>
+     * @param tag Tag name
+     * @param digest Manifest digest
+     * @return Future which completes when tag is updated
+     */
+    private CompletableFuture<Void> tag(final String tag, final Digest digest) {
+        final Key current = new Key.From(this.root(), "_manifests", new ManifestRef(tag).string());
+        return new Link(
+            new Key.From(
+                this.root(), "_manifests", "tags", tag, "index",
+                digest.alg(), digest.digest(), "link"
+            ),
+            digest
+        ).save(this.asto)
+            .thenCompose(none -> new Link(current, digest).replace(this.mvr))
+            .thenRun(() -> this.cache.links().invalidate(current.string()))
+            .thenCompose(none -> this.tagIndex().add(tag));
+    }
+
+    /**
+     * Sorted index of repository tags.
+     * @return Tag index
+     */
+    private SortedIndex tagIndex() {
+        return new SortedIndex(
+            this.asto, new Key.From(this.root(), "_index", "tags"), this.cache, this.mvr
+        );
+    }
+
+    /**
+     * List all tags of repository by tag current links, it's slow
+     * and used only to build tag index.
+     * @return Future with tags, empty if repository has no tags directory,
+     *  fails if storage fails to list them
+     */
+    private CompletableFuture<Collection<String>> listTags() {
+        final Key tags = new Key.From(this.root(), "_manifests", "tags");
+        final String prefix = String.format("%s/", tags.string());
+        final String suffix = "/current/link";
+        return new Listing(this.asto, tags).keys().<Collection<String>>thenApply(
+            keys -> keys.stream()
+                .map(Key::string)
+                .filter(key -> key.startsWith(prefix) && key.endsWith(suffix))
+                .map(key -> key.substring(prefix.length(), key.length() - suffix.length()))
+                .filter(tag -> tag.indexOf('/') < 0)
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Read link file.
+     * @param key Link key string
+     * @return Future with digest from the link
+     */
+    private CompletableFuture<Digest> link(final String key) {
+        return this.asto.value(new Key.From(key))
+            .thenCompose(pub -> new BytesFlowAs.Text(pub).future())
+            .thenApply(Digest.FromLink::new);
+    }
+
     /**
      * Flow publisher from future.
      * @param <T> Publisher type
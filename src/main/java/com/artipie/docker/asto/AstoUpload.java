@@ -0,0 +1,378 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.Digest;
+import com.artipie.docker.Upload;
+import com.artipie.docker.misc.BytesFlowAs;
+import com.artipie.docker.misc.HashedFlow;
+import com.artipie.docker.misc.KeyedSequence;
+import com.artipie.docker.misc.Sha256State;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Asto implementation of {@link Upload}.
+ * <p>
+ * Upload state is stored under
+ * <code>repositories/&lt;name&gt;/_uploads/&lt;id&gt;</code> key:
+ * <code>startedat</code> has upload start time, <code>offset</code>
+ * has the size of received data and the data is kept by {@link Append}
+ * operation. Chunks are hashed when appended and
+ * SHA-256 state after each chunk is saved to
+ * <code>hashstates/sha256/&lt;offset&gt;</code>, so commit doesn't
+ * need to hash received data again. If the state is missing, commit
+ * hashes the data with JDK message digest, since the state doesn't
+ * have to be saved then.
+ * </p>
+ * <p>
+ * Commit cost depends on append operation: with {@link Append.FileSystem}
+ * chunks are appended to single file, which is renamed to blob file on
+ * commit, so commit doesn't read or write the data and append is
+ * O(chunk size). With {@link Append.Chunks} of generic storage, commit of
+ * several chunks is O(blob size), since they are concatenated. Before
+ * data is moved, commit checks that received data length is equal to
+ * upload offset.
+ * </p>
+ * <p>
+ * Appends and commits of the same upload are serialized by the sequence
+ * keyed by upload key, so concurrent or retried requests can't mix their
+ * chunks, hash states and offsets. Sequence should be shared by all
+ * uploads objects of the storage, e.g. {@link Caches#updates()}.
+ * </p>
+ * <p>
+ * Upload is removed after commit. If delete operation only truncates
+ * values, e.g. {@link Delete.Truncate}, empty <code>startedat</code> is
+ * left and upload is treated as missing.
+ * </p>
+ * @since 0.2
+ */
+public final class AstoUpload implements Upload {
+
+    /**
+     * Storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repository key.
+     */
+    private final Key repo;
+
+    /**
+     * Upload id.
+     */
+    private final String id;
+
+    /**
+     * Append operation.
+     */
+    private final Append data;
+
+    /**
+     * Delete operation.
+     */
+    private final Delete del;
+
+    /**
+     * Sequence of upload updates by upload key.
+     */
+    private final KeyedSequence<String> seq;
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param repo Repository key
+     * @param id Upload id
+     * @param data Append operation
+     * @param del Delete operation
+     * @param seq Sequence of upload updates by upload key
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoUpload(final Storage asto, final Key repo, final String id,
+        final Append data, final Delete del, final KeyedSequence<String> seq) {
+        this.asto = asto;
+        this.repo = repo;
+        this.id = id;
+        this.data = data;
+        this.del = del;
+        this.seq = seq;
+    }
+
+    @Override
+    public String uuid() {
+        return this.id;
+    }
+
+    @Override
+    public CompletableFuture<Long> append(final long offset,
+        final Flow.Publisher<ByteBuffer> chunk) {
+        return this.seq.run(this.key().string(), () -> this.write(offset, chunk));
+    }
+
+    @Override
+    public CompletableFuture<Long> offset() {
+        return this.started().thenCompose(
+            started -> {
+                if (!started) {
+                    throw new IllegalStateException(
+                        String.format("Upload %s doesn't exist", this.id)
+                    );
+                }
+                return this.state("offset");
+            }
+        ).thenApply(offset -> offset.map(Long::parseLong).orElse(0L));
+    }
+
+    @Override
+    public CompletableFuture<Digest> commit(final Digest expected) {
+        return this.seq.run(this.key().string(), () -> this.store(expected));
+    }
+
+    /**
+     * Save upload start time.
+     * @param time Start time string
+     * @return Future which completes when saved
+     */
+    CompletableFuture<Void> start(final String time) {
+        return this.asto.save(this.key("startedat"), AstoUpload.text(time));
+    }
+
+    /**
+     * Check if upload was started.
+     * @return Future with true if upload exists
+     */
+    CompletableFuture<Boolean> started() {
+        return this.state("startedat").thenApply(Optional::isPresent);
+    }
+
+    /**
+     * Write chunk at the offset, it should not overlap with other updates.
+     * @param offset Chunk offset
+     * @param chunk Chunk data
+     * @return Future with new upload offset
+     */
+    private CompletableFuture<Long> write(final long offset,
+        final Flow.Publisher<ByteBuffer> chunk) {
+        return this.offset().thenCompose(
+            current -> {
+                if (current != offset) {
+                    throw new IllegalStateException(
+                        String.format(
+                            "Upload %s offset is %d, but chunk offset is %d",
+                            this.id, current, offset
+                        )
+                    );
+                }
+                return this.hash(offset);
+            }
+        ).thenCompose(
+            sha -> {
+                final HashedFlow hashed = new HashedFlow(chunk, sha);
+                return this.data.append(this.key(), offset, hashed)
+                    .thenCompose(length -> hashed.state());
+            }
+        ).thenCompose(
+            sha -> this.asto.save(
+                this.key("hashstates", "sha256", String.valueOf(sha.length())),
+                FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(sha.bytes())))
+            ).thenCompose(
+                none -> this.asto.save(
+                    this.key("offset"), AstoUpload.text(String.valueOf(sha.length()))
+                )
+            ).thenApply(none -> sha.length())
+        );
+    }
+
+    /**
+     * Store upload data as a blob, it should not overlap with other updates.
+     * @param expected Expected digest
+     * @return Future with digest
+     */
+    private CompletableFuture<Digest> store(final Digest expected) {
+        return this.offset().thenCompose(
+            offset -> this.digest(offset).thenCompose(
+                digest -> {
+                    if (!digest.equals(expected)) {
+                        throw new IllegalStateException(
+                            String.format(
+                                "Upload %s digest mismatch: expected %s, but was %s",
+                                this.id, expected, digest
+                            )
+                        );
+                    }
+                    return this.asto.exists(AstoBlobs.data(digest)).thenCompose(
+                        exists -> {
+                            final CompletableFuture<Void> res;
+                            if (exists) {
+                                res = CompletableFuture.allOf();
+                            } else {
+                                res = this.data.store(
+                                    this.key(), offset, AstoBlobs.data(digest)
+                                ).thenCompose(
+                                    none -> AstoBlobs.saveSize(this.asto, digest, offset)
+                                );
+                            }
+                            return res;
+                        }
+                    ).thenApply(none -> digest);
+                }
+            )
+        ).thenCompose(
+            digest -> new LayerLink(this.repo, digest).save(this.asto)
+                .thenCompose(none -> this.clean())
+                .thenApply(none -> digest)
+        );
+    }
+
+    /**
+     * Read upload state value.
+     * <p>
+     * Removed upload may leave empty state values if delete operation
+     * can't remove keys, so empty value is treated as missing.
+     * </p>
+     * @param name State value name
+     * @return Future with value, empty if it's missing or empty
+     */
+    private CompletableFuture<Optional<String>> state(final String name) {
+        final Key key = this.key(name);
+        return this.asto.exists(key).thenCompose(
+            exists -> {
+                final CompletableFuture<Optional<String>> res;
+                if (exists) {
+                    res = this.asto.value(key)
+                        .thenCompose(pub -> new BytesFlowAs.Text(pub).future())
+                        .thenApply(text -> Optional.of(text).filter(str -> !str.isEmpty()));
+                } else {
+                    res = CompletableFuture.completedFuture(Optional.empty());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Digest of the data received before offset.
+     * <p>
+     * Saved hash state is used if it exists, otherwise received data
+     * is hashed by append operation.
+     * </p>
+     * @param offset Upload offset
+     * @return Future with digest
+     */
+    private CompletableFuture<Digest> digest(final long offset) {
+        return this.hash(offset).thenApply(Sha256State::digest);
+    }
+
+    /**
+     * Hash state of the data received before offset.
+     * <p>
+     * If there is no saved state, e.g. when upload was interrupted
+     * between saving the chunk and its hash state,
+     * state is restored by hashing received chunks.
+     * </p>
+     * @param offset Upload offset
+     * @return Future with hash state
+     */
+    private CompletableFuture<Sha256State> hash(final long offset) {
+        return this.saved(offset).thenCompose(
+            saved -> saved.map(CompletableFuture::completedFuture)
+                .orElseGet(() -> this.data.hash(this.key(), offset))
+        );
+    }
+
+    /**
+     * Saved hash state of the data received before offset.
+     * @param offset Upload offset
+     * @return Future with hash state, empty if it's not saved
+     */
+    private CompletableFuture<Optional<Sha256State>> saved(final long offset) {
+        final Key key = this.key("hashstates", "sha256", String.valueOf(offset));
+        final CompletableFuture<Optional<Sha256State>> res;
+        if (offset == 0) {
+            res = CompletableFuture.completedFuture(Optional.of(new Sha256State()));
+        } else {
+            res = this.asto.exists(key).thenCompose(
+                exists -> {
+                    final CompletableFuture<Optional<Sha256State>> state;
+                    if (exists) {
+                        state = this.asto.value(key)
+                            .thenCompose(pub -> new BytesFlowAs.Bytes(pub).future())
+                            .thenApply(
+                                buf -> {
+                                    final byte[] bytes = new byte[buf.remaining()];
+                                    buf.get(bytes);
+                                    return Optional.of(new Sha256State(bytes));
+                                }
+                            );
+                    } else {
+                        state = CompletableFuture.completedFuture(Optional.empty());
+                    }
+                    return state;
+                }
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Remove upload data.
+     * @return Future which completes when removed
+     */
+    private CompletableFuture<Void> clean() {
+        return this.asto.list(String.format("%s/", this.key().string())).thenCompose(
+            keys -> CompletableFuture.allOf(
+                keys.stream().map(this.del::delete).toArray(CompletableFuture[]::new)
+            )
+        );
+    }
+
+    /**
+     * Upload key.
+     * @param parts Key parts inside upload
+     * @return Key
+     */
+    private Key key(final String... parts) {
+        return new Key.From(new Key.From(this.repo, "_uploads", this.id), parts);
+    }
+
+    /**
+     * Text publisher.
+     * @param text Text
+     * @return Publisher of UTF-8 bytes
+     */
+    private static Flow.Publisher<ByteBuffer> text(final String text) {
+        return FlowAdapters.toFlowPublisher(
+            Flowable.fromArray(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.Upload;
+import com.artipie.docker.Uploads;
+import com.artipie.docker.misc.KeyedSequence;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asto implementation of {@link Uploads}.
+ * @since 0.2
+ */
+public final class AstoUploads implements Uploads {
+
+    /**
+     * Storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Repository key.
+     */
+    private final Key repo;
+
+    /**
+     * Append operation.
+     */
+    private final Append data;
+
+    /**
+     * Delete operation.
+     */
+    private final Delete del;
+
+    /**
+     * Sequence of upload updates by upload key.
+     */
+    private final KeyedSequence<String> seq;
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param repo Repository key
+     * @param data Append operation
+     * @param del Delete operation
+     * @param seq Sequence of upload updates by upload key, shared by uploads
+     *  of the storage
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public AstoUploads(final Storage asto, final Key repo, final Append data,
+        final Delete del, final KeyedSequence<String> seq) {
+        this.asto = asto;
+        this.repo = repo;
+        this.data = data;
+        this.del = del;
+        this.seq = seq;
+    }
+
+    @Override
+    public CompletableFuture<Upload> start() {
+        final AstoUpload upload = this.upload(UUID.randomUUID().toString());
+        return upload.start(Instant.now().toString()).thenApply(none -> upload);
+    }
+
+    @Override
+    public CompletableFuture<Upload> get(final String uuid) {
+        return CompletableFuture.completedFuture(uuid)
+            .thenApply(UUID::fromString)
+            .thenApply(id -> this.upload(id.toString()))
+            .thenCompose(
+                upload -> upload.started().thenApply(
+                    started -> {
+                        if (!started) {
+                            throw new IllegalStateException(
+                                String.format("Upload %s was not started", uuid)
+                            );
+                        }
+                        return upload;
+                    }
+                )
+            );
+    }
+
+    /**
+     * Upload by id.
+     * @param uuid Upload id
+     * @return Upload
+     */
+    private AstoUpload upload(final String uuid) {
+        return new AstoUpload(this.asto, this.repo, uuid, this.data, this.del, this.seq);
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.Digest;
+import com.artipie.docker.misc.BoundedParallel;
+import com.artipie.docker.misc.BytesFlowAs;
+import com.artipie.docker.misc.DigestSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Mark-and-sweep garbage collector of registry blobs.
+ * <p>
+ * Mark phase reads all revision and layer links of all repositories
+ * concurrently and collects linked SHA-256 digests to compact
+ * {@link DigestSet}. Sweep phase removes data and size of each blob
+ * which is not linked by any repository. Other algorithms are not
+ * collected.
+ * </p>
+ * <p>
+ * Collector doesn't lock the registry, so blobs to sweep are listed
+ * before mark phase: blob which is pushed after that is not swept even
+ * if it's not linked yet. Blob which is pushed before listing is linked
+ * by the same push right after the blob is stored, so mark phase starts
+ * after grace period, which should be longer than it takes to store
+ * a blob and its link. Delete operation should remove the keys:
+ * {@link Delete.Truncate} is rejected, since it leaves empty blobs which
+ * look like existing ones.
+ * </p>
+ * @since 0.2
+ */
+public final class BlobCollector {
+
+    /**
+     * Default number of links or blobs processed concurrently.
+     */
+    private static final int PARALLEL = 32;
+
+    /**
+     * Default grace period between listing blobs and mark phase.
+     */
+    private static final Duration GRACE = Duration.ofMinutes(1);
+
+    /**
+     * Storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Delete operation.
+     */
+    private final Delete del;
+
+    /**
+     * Grace period between listing blobs and mark phase.
+     */
+    private final Duration grace;
+
+    /**
+     * Number of links or blobs processed concurrently.
+     */
+    private final int parallel;
+
+    /**
+     * Progress of last started collection.
+     */
+    private final AtomicReference<BlobCollector.Progress> current;
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param del Delete operation
+     */
+    public BlobCollector(final Storage asto, final Delete del) {
+        this(asto, del, BlobCollector.GRACE);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param del Delete operation
+     * @param grace Grace period between listing blobs and mark phase
+     */
+    public BlobCollector(final Storage asto, final Delete del, final Duration grace) {
+        this(asto, del, grace, BlobCollector.PARALLEL);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param del Delete operation
+     * @param parallel Number of links or blobs processed concurrently
+     */
+    public BlobCollector(final Storage asto, final Delete del, final int parallel) {
+        this(asto, del, BlobCollector.GRACE, parallel);
+    }
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param del Delete operation
+     * @param grace Grace period between listing blobs and mark phase
+     * @param parallel Number of links or blobs processed concurrently
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public BlobCollector(final Storage asto, final Delete del, final Duration grace,
+        final int parallel) {
+        if (del instanceof Delete.Truncate) {
+            throw new IllegalStateException(
+                "Blobs can't be collected with truncating delete, it leaves empty blobs"
+            );
+        }
+        this.asto = asto;
+        this.del = del;
+        this.grace = grace;
+        this.parallel = parallel;
+        this.current = new AtomicReference<>(new BlobCollector.Progress());
+    }
+
+    /**
+     * Collect unreferenced blobs.
+     * @param dry Dry run: find unreferenced blobs, but don't remove them
+     * @return Future with progress of completed collection
+     */
+    public CompletableFuture<BlobCollector.Progress> collect(final boolean dry) {
+        final DigestSet marked = new DigestSet();
+        final BlobCollector.Progress prg = new BlobCollector.Progress();
+        this.current.set(prg);
+        return this.blobs().thenCompose(
+            blobs -> CompletableFuture.runAsync(
+                () -> { },
+                CompletableFuture.delayedExecutor(this.grace.toMillis(), TimeUnit.MILLISECONDS)
+            ).thenCompose(none -> this.mark(marked, prg))
+                .thenCompose(none -> this.sweep(blobs, marked, prg, dry))
+        ).thenApply(none -> prg);
+    }
+
+    /**
+     * Progress of running or last completed collection.
+     * @return Progress counters, updated concurrently
+     */
+    public BlobCollector.Progress progress() {
+        return this.current.get();
+    }
+
+    /**
+     * Mark all linked blobs.
+     * @param marked Set of marked digests
+     * @param prg Progress
+     * @return Future which completes when all links are read
+     */
+    private CompletableFuture<Void> mark(final DigestSet marked,
+        final BlobCollector.Progress prg) {
+        return this.keys(new Key.From(RegistryRoot.V2, "repositories")).thenCompose(
+            keys -> new BoundedParallel<>(
+                keys.stream().filter(BlobCollector::link).collect(Collectors.toList()),
+                this.parallel
+            ).forEach(
+                key -> this.asto.value(new Key.From(key))
+                    .thenCompose(pub -> new BytesFlowAs.Text(pub).future())
+                    .thenAccept(
+                        text -> {
+                            final Digest digest = new Digest.FromLink(text);
+                            if ("sha256".equals(digest.alg())) {
+                                marked.add(digest.digest());
+                            }
+                            prg.links.incrementAndGet();
+                        }
+                    )
+            ).thenRun(() -> prg.marked.set(marked.size()))
+        );
+    }
+
+    /**
+     * List SHA-256 blobs.
+     * @return Future with hex digests of blobs
+     */
+    private CompletableFuture<List<String>> blobs() {
+        final String suffix = "/data";
+        return this.keys(new Key.From(RegistryRoot.V2, "blobs", "sha256")).thenApply(
+            keys -> keys.stream()
+                .filter(key -> key.endsWith(suffix))
+                .map(key -> key.substring(0, key.length() - suffix.length()))
+                .map(key -> key.substring(key.lastIndexOf('/') + 1))
+                .filter(DigestSet::valid)
+                .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Remove blobs which are not marked.
+     * @param blobs Hex digests of blobs listed before mark phase
+     * @param marked Set of marked digests
+     * @param prg Progress
+     * @param dry Dry run
+     * @return Future which completes when all blobs are checked
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    private CompletableFuture<Void> sweep(final List<String> blobs, final DigestSet marked,
+        final BlobCollector.Progress prg, final boolean dry) {
+        return new BoundedParallel<>(blobs, this.parallel).forEach(
+            hex -> {
+                prg.blobs.incrementAndGet();
+                final CompletableFuture<Void> res;
+                if (marked.contains(hex)) {
+                    res = CompletableFuture.completedFuture(null);
+                } else {
+                    prg.garbage.incrementAndGet();
+                    if (dry) {
+                        res = CompletableFuture.completedFuture(null);
+                    } else {
+                        res = this.remove(new Digest.Sha256(hex))
+                            .thenRun(prg.removed::incrementAndGet);
+                    }
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Remove blob data and size.
+     * @param digest Blob digest
+     * @return Future which completes when blob is removed
+     */
+    private CompletableFuture<Void> remove(final Digest digest) {
+        return this.del.delete(AstoBlobs.meta(digest))
+            .thenCompose(none -> this.del.delete(AstoBlobs.data(digest)));
+    }
+
+    /**
+     * List all keys with prefix.
+     * @param prefix Prefix
+     * @return Future with key strings, empty if the prefix doesn't exist
+     */
+    private CompletableFuture<List<String>> keys(final Key prefix) {
+        return new Listing(this.asto, prefix).keys().thenApply(
+            keys -> keys.stream().map(Key::string).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Check if key is a revision or layer link.
+     * @param key Key string
+     * @return True if it's a link which refers to blob
+     */
+    private static boolean link(final String key) {
+        return key.endsWith("/link")
+            && (key.contains("/_manifests/revisions/") || key.contains("/_layers/"));
+    }
+
+    /**
+     * Progress of garbage collection.
+     * @since 0.2
+     */
+    public static final class Progress {
+
+        /**
+         * Links read.
+         */
+        private final AtomicLong links;
+
+        /**
+         * Unique digests marked as reachable, known when mark phase is completed.
+         */
+        private final AtomicLong marked;
+
+        /**
+         * Blobs checked.
+         */
+        private final AtomicLong blobs;
+
+        /**
+         * Unreachable blobs found.
+         */
+        private final AtomicLong garbage;
+
+        /**
+         * Unreachable blobs removed.
+         */
+        private final AtomicLong removed;
+
+        /**
+         * Ctor.
+         */
+        Progress() {
+            this.links = new AtomicLong();
+            this.marked = new AtomicLong();
+            this.blobs = new AtomicLong();
+            this.garbage = new AtomicLong();
+            this.removed = new AtomicLong();
+        }
+
+        /**
+         * Number of links read.
+         * @return Links
+         */
+        public long links() {
+            return this.links.get();
+        }
+
+        /**
+         * Number of unique digests marked as reachable.
+         * @return Marked digests
+         */
+        public long marked() {
+            return this.marked.get();
+        }
+
+        /**
+         * Number of blobs checked.
+         * @return Blobs
+         */
+        public long blobs() {
+            return this.blobs.get();
+        }
+
+        /**
+         * Number of unreachable blobs found.
+         * @return Garbage blobs
+         */
+        public long garbage() {
+            return this.garbage.get();
+        }
+
+        /**
+         * Number of unreachable blobs removed, zero for dry run.
+         * @return Removed blobs
+         */
+        public long removed() {
+            return this.removed.get();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "links=%d, marked=%d, blobs=%d, garbage=%d, removed=%d",
+                this.links(), this.marked(), this.blobs(), this.garbage(), this.removed()
+            );
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.docker.Digest;
+import com.artipie.docker.misc.BytesCache;
+import com.artipie.docker.misc.KeyedSequence;
+import com.artipie.docker.misc.LruCache;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Caches of repository metadata.
+ * <p>
+ * Caches are keyed by full storage keys, so one instance can be
+ * shared between repositories of the registry.
+ * </p>
+ * @since 0.2
+ */
+public final class Caches {
+
+    /**
+     * Default time to live of manifest links.
+     */
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    /**
+     * Size of layer links cache.
+     */
+    private static final int LAYERS = 16 * 1024;
+
+    /**
+     * Size of manifest links cache.
+     */
+    private static final int LINKS = 4 * 1024;
+
+    /**
+     * Size of manifests content cache in bytes.
+     */
+    private static final long MANIFESTS = 8L * 1024 * 1024;
+
+    /**
+     * Size of sorted indexes cache.
+     */
+    private static final int INDEXES = 64;
+
+    /**
+     * Resolved layer links.
+     */
+    private final LruCache<String, Digest> lrs;
+
+    /**
+     * Resolved manifest links: tags and revisions.
+     */
+    private final LruCache<String, Digest> lnk;
+
+    /**
+     * Manifests content by blob key, manifest blobs are immutable.
+     */
+    private final BytesCache mnf;
+
+    /**
+     * Sorted indexes content by index key.
+     */
+    private final LruCache<String, List<String>> idx;
+
+    /**
+     * Sequence of updates by storage key.
+     */
+    private final KeyedSequence<String> upd;
+
+    /**
+     * Caches with default manifest links time to live.
+     */
+    public Caches() {
+        this(Caches.TTL);
+    }
+
+    /**
+     * Ctor.
+     * @param ttl Time to live of manifest links
+     */
+    public Caches(final Duration ttl) {
+        this(
+            new LruCache<>(Caches.LAYERS),
+            new LruCache<>(Caches.LINKS, ttl),
+            new BytesCache(Caches.MANIFESTS),
+            new LruCache<>(Caches.INDEXES, ttl)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param lrs Layer links cache
+     * @param lnk Manifest links cache
+     * @param mnf Manifests content cache
+     */
+    public Caches(final LruCache<String, Digest> lrs, final LruCache<String, Digest> lnk,
+        final BytesCache mnf) {
+        this(lrs, lnk, mnf, new LruCache<>(Caches.INDEXES, Caches.TTL));
+    }
+
+    /**
+     * Ctor.
+     * @param lrs Layer links cache
+     * @param lnk Manifest links cache
+     * @param mnf Manifests content cache
+     * @param idx Sorted indexes cache
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public Caches(final LruCache<String, Digest> lrs, final LruCache<String, Digest> lnk,
+        final BytesCache mnf, final LruCache<String, List<String>> idx) {
+        this.lrs = lrs;
+        this.lnk = lnk;
+        this.mnf = mnf;
+        this.idx = idx;
+        this.upd = new KeyedSequence<>();
+    }
+
+    /**
+     * Layer links cache.
+     * @return Cache of digests by layer link key
+     */
+    public LruCache<String, Digest> layers() {
+        return this.lrs;
+    }
+
+    /**
+     * Manifest links cache.
+     * <p>
+     * Tag links are mutable, so entries expire and must be
+     * invalidated when tag is updated.
+     * </p>
+     * @return Cache of digests by manifest link key
+     */
+    public LruCache<String, Digest> links() {
+        return this.lnk;
+    }
+
+    /**
+     * Manifests content cache.
+     * <p>
+     * Cache is bounded by total size of manifests data.
+     * </p>
+     * @return Cache of manifest data by blob key
+     */
+    public BytesCache manifests() {
+        return this.mnf;
+    }
+
+    /**
+     * Sorted indexes cache.
+     * <p>
+     * Indexes are mutable, so entries expire and must be
+     * invalidated when index is updated.
+     * </p>
+     * @return Cache of sorted names by index key
+     */
+    public LruCache<String, List<String>> indexes() {
+        return this.idx;
+    }
+
+    /**
+     * Sequence of updates.
+     * <p>
+     * Indexes and uploads are updated by read-modify-write, so updates
+     * of the same index or upload should not overlap.
+     * </p>
+     * @return Updates sequence by index or upload key
+     */
+    public KeyedSequence<String> updates() {
+        return this.upd;
+    }
+}
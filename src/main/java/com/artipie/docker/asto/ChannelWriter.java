@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Subscriber which writes chunks to file with a file channel.
+ * <p>
+ * Chunks are processed one by one off the publisher thread,
+ * next chunk is requested when previous one is written. Each chunk
+ * is passed to accept callback before it's written, the callback may
+ * fail writing by throwing an exception, and to release callback after
+ * it's written or failed. Writing starts from the position: file is
+ * truncated to it and writing fails if file is shorter.
+ * </p>
+ * @since 0.2
+ */
+final class ChannelWriter implements Flow.Subscriber<ByteBuffer> {
+
+    /**
+     * File path.
+     */
+    private final Path file;
+
+    /**
+     * Position to start writing from.
+     */
+    private final long position;
+
+    /**
+     * Callback for chunk before it's written.
+     */
+    private final Consumer<ByteBuffer> accept;
+
+    /**
+     * Callback for chunk after it's written.
+     */
+    private final Consumer<ByteBuffer> release;
+
+    /**
+     * Size result.
+     */
+    private final CompletableFuture<Long> size;
+
+    /**
+     * Last scheduled task.
+     */
+    private final AtomicReference<CompletableFuture<Void>> last;
+
+    /**
+     * File channel.
+     */
+    private FileChannel chan;
+
+    /**
+     * Upstream subscription.
+     */
+    private Flow.Subscription upstream;
+
+    /**
+     * Written bytes.
+     */
+    private long total;
+
+    /**
+     * Ctor.
+     * @param file File path
+     * @param accept Callback for chunk before it's written
+     * @param release Callback for chunk after it's written
+     */
+    ChannelWriter(final Path file, final Consumer<ByteBuffer> accept,
+        final Consumer<ByteBuffer> release) {
+        this(file, 0L, accept, release);
+    }
+
+    /**
+     * Ctor.
+     * @param file File path
+     * @param position Position to start writing from
+     * @param accept Callback for chunk before it's written
+     * @param release Callback for chunk after it's written
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    ChannelWriter(final Path file, final long position, final Consumer<ByteBuffer> accept,
+        final Consumer<ByteBuffer> release) {
+        this.file = file;
+        this.position = position;
+        this.accept = accept;
+        this.release = release;
+        this.size = new CompletableFuture<>();
+        this.last = new AtomicReference<>(CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Size of written data.
+     * @return Future which completes when file is written and closed
+     */
+    CompletableFuture<Long> result() {
+        return this.size;
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        this.upstream = subscription;
+        this.schedule(
+            () -> {
+                try {
+                    Files.createDirectories(this.file.getParent());
+                    this.chan = FileChannel.open(
+                        this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE
+                    );
+                    if (this.chan.size() < this.position) {
+                        throw new IllegalStateException(
+                            String.format(
+                                "File %s is shorter than %d bytes", this.file, this.position
+                            )
+                        );
+                    }
+                    this.chan.truncate(this.position);
+                    this.chan.position(this.position);
+                } catch (final IOException err) {
+                    throw new UncheckedIOException(err);
+                }
+            }
+        ).thenRun(() -> this.upstream.request(1L));
+    }
+
+    @Override
+    public void onNext(final ByteBuffer chunk) {
+        this.schedule(
+            () -> {
+                this.accept.accept(chunk.duplicate());
+                final ByteBuffer buf = chunk.duplicate();
+                try {
+                    while (buf.hasRemaining()) {
+                        this.total += this.chan.write(buf);
+                    }
+                } catch (final IOException err) {
+                    throw new UncheckedIOException(err);
+                }
+            }
+        ).whenComplete((none, err) -> this.release.accept(chunk))
+            .thenRun(() -> this.upstream.request(1L));
+    }
+
+    @Override
+    public void onError(final Throwable err) {
+        this.schedule(this::close);
+        this.size.completeExceptionally(err);
+    }
+
+    @Override
+    public void onComplete() {
+        this.schedule(this::close).thenRun(() -> this.size.complete(this.total));
+    }
+
+    /**
+     * Schedule task after previous ones, cancel upstream if it fails.
+     * @param task Task
+     * @return Future which completes when task is done
+     */
+    private CompletableFuture<Void> schedule(final Runnable task) {
+        final CompletableFuture<Void> next = this.last.updateAndGet(
+            prev -> prev.thenRunAsync(task)
+        );
+        next.exceptionally(
+            err -> {
+                if (!this.size.isDone()) {
+                    this.upstream.cancel();
+                    this.close();
+                    this.size.completeExceptionally(err);
+                }
+                return null;
+            }
+        );
+        return next;
+    }
+
+    /**
+     * Close file channel.
+     */
+    private void close() {
+        if (this.chan != null && this.chan.isOpen()) {
+            try {
+                this.chan.close();
+            } catch (final IOException err) {
+                throw new UncheckedIOException(err);
+            }
+        }
+    }
+}
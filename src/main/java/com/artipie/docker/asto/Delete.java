@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Delete storage value.
+ * <p>
+ * Asto {@link Storage} doesn't support delete operation yet, so it's
+ * implemented here, the same way as {@link Move}.
+ * </p>
+ * @since 0.2
+ */
+public interface Delete {
+
+    /**
+     * Delete value.
+     * @param key Key
+     * @return Future which completes when value is deleted
+     */
+    CompletableFuture<Void> delete(Key key);
+
+    /**
+     * Delete by truncating the value to zero length.
+     * <p>
+     * Works on any storage and frees the space, but the key still exists.
+     * </p>
+     * @since 0.2
+     */
+    final class Truncate implements Delete {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         */
+        public Truncate(final Storage asto) {
+            this.asto = asto;
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key key) {
+            return this.asto.save(key, FlowAdapters.toFlowPublisher(Flowable.empty()));
+        }
+    }
+
+    /**
+     * Delete a file of file-system storage.
+     * <p>
+     * Empty parent directories of the file are removed too.
+     * Should be used only with {@link com.artipie.asto.fs.FileStorage}
+     * with the same root directory.
+     * </p>
+     * @since 0.2
+     */
+    final class FileSystem implements Delete {
+
+        /**
+         * Storage root directory.
+         */
+        private final Path root;
+
+        /**
+         * Ctor.
+         * @param root Storage root directory
+         */
+        public FileSystem(final Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public CompletableFuture<Void> delete(final Key key) {
+            return CompletableFuture.runAsync(
+                () -> {
+                    final Path base = Paths.get(this.root.toString());
+                    Path path = Paths.get(this.root.toString(), key.string());
+                    try {
+                        Files.deleteIfExists(path);
+                        path = path.getParent();
+                        while (!path.equals(base) && path.startsWith(base)
+                            && Delete.FileSystem.removed(path)) {
+                            path = path.getParent();
+                        }
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                }
+            );
+        }
+
+        /**
+         * Remove directory if it's empty.
+         * @param dir Directory
+         * @return True if removed, false if directory is not empty
+         * @throws IOException On error
+         */
+        private static boolean removed(final Path dir) throws IOException {
+            boolean res;
+            try {
+                Files.delete(dir);
+                res = true;
+            } catch (final DirectoryNotEmptyException ex) {
+                res = false;
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.docker.BlobStore;
+import com.artipie.docker.Digest;
+import com.artipie.docker.misc.BufferPool;
+import com.artipie.docker.misc.DigestedFlow;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link BlobStore} of file-system storage.
+ * <p>
+ * Blob data is read as read-only slices of memory-mapped files and blob
+ * size is taken from file attributes. Put data is written to upload file
+ * with {@link ChannelWriter} and hashed by {@link DigestedFlow} on separate
+ * thread, so hashing overlaps with writing, then upload file is
+ * moved to the blob path. Put doesn't take ownership of data chunks,
+ * callers which acquire chunks from {@link BufferPool} may transfer
+ * ownership explicitly with {@link #put(Flow.Publisher, BufferPool)},
+ * then written chunks are released to the pool.
+ * </p>
+ * @since 0.2
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class FileSystemBlobs implements BlobStore {
+
+    /**
+     * Storage root directory.
+     */
+    private final Path root;
+
+    /**
+     * Read range operation.
+     */
+    private final ReadRange range;
+
+    /**
+     * Ctor.
+     * @param root Storage root directory
+     */
+    public FileSystemBlobs(final Path root) {
+        this.root = root;
+        this.range = new ReadRange.FileSystem(root);
+    }
+
+    @Override
+    public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest) {
+        return this.range.read(AstoBlobs.data(digest), 0, Long.MAX_VALUE);
+    }
+
+    @Override
+    public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest,
+        final long offset, final long length) {
+        return this.range.read(AstoBlobs.data(digest), offset, length);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(final Digest digest) {
+        return CompletableFuture.supplyAsync(
+            () -> Files.isRegularFile(this.path(AstoBlobs.data(digest)))
+        );
+    }
+
+    @Override
+    public CompletableFuture<Long> size(final Digest digest) {
+        return CompletableFuture.supplyAsync(
+            () -> {
+                try {
+                    return Files.size(this.path(AstoBlobs.data(digest)));
+                } catch (final IOException err) {
+                    throw new UncheckedIOException(err);
+                }
+            }
+        );
+    }
+
+    @Override
+    public CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob) {
+        return this.put(blob, Optional.empty(), chunk -> { });
+    }
+
+    @Override
+    public CompletableFuture<Digest> put(final Digest expected,
+        final Flow.Publisher<ByteBuffer> blob) {
+        return this.put(blob, Optional.of(expected), chunk -> { });
+    }
+
+    /**
+     * Put blob data and transfer ownership of its chunks to the pool.
+     * <p>
+     * Each chunk is released to the pool after it's written or failed,
+     * so the chunk must not be used by the caller after it's published.
+     * Chunks which were not acquired from the pool are dropped by it.
+     * </p>
+     * @param blob Data flow of chunks acquired from the pool
+     * @param pool Pool to release written chunks to
+     * @return Future with digest
+     */
+    public CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob,
+        final BufferPool pool) {
+        return this.put(blob, Optional.empty(), pool::release);
+    }
+
+    /**
+     * Put blob data, upload is deleted if it fails or digest doesn't match.
+     * @param blob Data flow
+     * @param expected Expected digest
+     * @param release Callback for chunk after it's written
+     * @return Future with digest
+     */
+    private CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob,
+        final Optional<Digest> expected, final Consumer<ByteBuffer> release) {
+        final Path upload = this.path(
+            new Key.From(RegistryRoot.V2, "uploads", UUID.randomUUID().toString())
+        );
+        final FileSystemBlobs.Both done = new FileSystemBlobs.Both(release);
+        final DigestedFlow digested = new DigestedFlow(blob, done);
+        final ChannelWriter writer = new ChannelWriter(upload, chunk -> { }, done);
+        digested.subscribe(writer);
+        return writer.result().thenCompose(size -> digested.digest()).thenApply(
+            digest -> {
+                if (!expected.map(digest::equals).orElse(true)) {
+                    throw new IllegalStateException(
+                        String.format(
+                            "Digest mismatch: expected %s, but was %s", expected.get(), digest
+                        )
+                    );
+                }
+                return digest;
+            }
+        ).handle(
+            (digest, err) -> {
+                final CompletableFuture<Digest> res;
+                if (err == null) {
+                    res = this.store(upload, digest);
+                } else {
+                    res = CompletableFuture.runAsync(() -> FileSystemBlobs.delete(upload))
+                        .handle((none, ignored) -> none)
+                        .thenCompose(none -> CompletableFuture.failedFuture(err));
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Move upload file to blob path and save its size, if blob doesn't exist yet.
+     * @param upload Upload file
+     * @param digest Blob digest
+     * @return Future with digest
+     */
+    private CompletableFuture<Digest> store(final Path upload, final Digest digest) {
+        return CompletableFuture.supplyAsync(
+            () -> {
+                final Path data = this.path(AstoBlobs.data(digest));
+                try {
+                    if (Files.isRegularFile(data)) {
+                        FileSystemBlobs.delete(upload);
+                    } else {
+                        final long size = Files.size(upload);
+                        Files.createDirectories(data.getParent());
+                        Files.move(upload, data, StandardCopyOption.ATOMIC_MOVE);
+                        Files.write(
+                            this.path(AstoBlobs.meta(digest)),
+                            String.valueOf(size).getBytes(StandardCharsets.UTF_8)
+                        );
+                    }
+                } catch (final IOException err) {
+                    throw new UncheckedIOException(err);
+                }
+                return digest;
+            }
+        );
+    }
+
+    /**
+     * Path of storage key.
+     * @param key Key
+     * @return Path
+     */
+    private Path path(final Key key) {
+        return Paths.get(this.root.toString(), key.string());
+    }
+
+    /**
+     * Delete file if exists.
+     * @param file File
+     */
+    private static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException err) {
+            throw new UncheckedIOException(err);
+        }
+    }
+
+    /**
+     * Callback which releases chunk when it's both written and hashed.
+     * @since 0.2
+     */
+    private static final class Both implements Consumer<ByteBuffer> {
+
+        /**
+         * Chunks which are either written or hashed.
+         */
+        private final Set<ByteBuffer> half;
+
+        /**
+         * Callback for chunk after it's written and hashed.
+         */
+        private final Consumer<ByteBuffer> release;
+
+        /**
+         * Ctor.
+         * @param release Callback for chunk after it's written and hashed
+         */
+        Both(final Consumer<ByteBuffer> release) {
+            this.half = Collections.newSetFromMap(new IdentityHashMap<>());
+            this.release = release;
+        }
+
+        @Override
+        public void accept(final ByteBuffer chunk) {
+            final boolean done;
+            synchronized (this.half) {
+                done = this.half.remove(chunk);
+                if (!done) {
+                    this.half.add(chunk);
+                }
+            }
+            if (done) {
+                this.release.accept(chunk);
+            }
+        }
+    }
+}
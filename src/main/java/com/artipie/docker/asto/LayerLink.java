@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.Digest;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Repository layer link.
+ * <p>
+ * layerLinkPathSpec:
+ * <code>repositories/&lt;name&gt;/_layers/
+ * &lt;algorithm&gt;/&lt;hex digest&gt;/link</code>
+ * </p>
+ * @since 0.2
+ */
+final class LayerLink {
+
+    /**
+     * Repository key.
+     */
+    private final Key repo;
+
+    /**
+     * Layer digest.
+     */
+    private final Digest digest;
+
+    /**
+     * Ctor.
+     * @param repo Repository key
+     * @param digest Layer digest
+     */
+    LayerLink(final Key repo, final Digest digest) {
+        this.repo = repo;
+        this.digest = digest;
+    }
+
+    /**
+     * Link key.
+     * @return Key
+     */
+    Key key() {
+        return new Key.From(
+            this.repo, "_layers", this.digest.alg(), this.digest.digest(), "link"
+        );
+    }
+
+    /**
+     * Save link to the storage.
+     * @param asto Storage
+     * @return Future which completes when saved
+     */
+    CompletableFuture<Void> save(final Storage asto) {
+        return new Link(this.key(), this.digest).save(asto);
+    }
+}
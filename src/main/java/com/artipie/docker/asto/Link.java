@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.Digest;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Link file which refers to a blob by digest.
+ * <p>
+ * Link content is <code>&lt;algorithm&gt;:&lt;hex digest&gt;</code>.
+ * </p>
+ * @since 0.2
+ */
+final class Link {
+
+    /**
+     * Link key.
+     */
+    private final Key key;
+
+    /**
+     * Blob digest.
+     */
+    private final Digest digest;
+
+    /**
+     * Ctor.
+     * @param key Link key
+     * @param digest Blob digest
+     */
+    Link(final Key key, final Digest digest) {
+        this.key = key;
+        this.digest = digest;
+    }
+
+    /**
+     * Save link to the storage.
+     * @param asto Storage
+     * @return Future which completes when saved
+     */
+    CompletableFuture<Void> save(final Storage asto) {
+        return asto.save(this.key, this.content());
+    }
+
+    /**
+     * Replace link at once.
+     * @param mvr Move operation of the storage
+     * @return Future which completes when replaced
+     */
+    CompletableFuture<Void> replace(final Move mvr) {
+        return mvr.replace(this.key, this.content());
+    }
+
+    /**
+     * Link content.
+     * @return Flow with digest link
+     */
+    private Flow.Publisher<ByteBuffer> content() {
+        return FlowAdapters.toFlowPublisher(
+            Flowable.fromCallable(
+                () -> ByteBuffer.wrap(
+                    String.join(":", this.digest.alg(), this.digest.digest())
+                        .getBytes(StandardCharsets.UTF_8)
+                )
+            )
+        );
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import java.nio.file.NoSuchFileException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Storage keys by prefix, empty if the prefix doesn't exist.
+ * <p>
+ * {@link com.artipie.asto.fs.FileStorage} fails to list missing
+ * directory with {@link NoSuchFileException}, while other storages list
+ * nothing by missing prefix. Only this failure is treated as empty list,
+ * other failures fail the listing.
+ * </p>
+ * @since 0.2
+ */
+final class Listing {
+
+    /**
+     * Storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Key prefix.
+     */
+    private final Key prefix;
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param prefix Key prefix
+     */
+    Listing(final Storage asto, final Key prefix) {
+        this.asto = asto;
+        this.prefix = prefix;
+    }
+
+    /**
+     * List keys.
+     * @return Future with keys
+     */
+    CompletableFuture<Collection<Key>> keys() {
+        return this.asto.list(String.format("%s/", this.prefix.string())).handle(
+            (keys, err) -> {
+                final CompletableFuture<Collection<Key>> res;
+                if (err == null) {
+                    res = CompletableFuture.completedFuture(keys);
+                } else if (Listing.missing(err)) {
+                    res = CompletableFuture.completedFuture(Collections.emptyList());
+                } else {
+                    res = CompletableFuture.failedFuture(err);
+                }
+                return res;
+            }
+        ).thenCompose(Function.identity());
+    }
+
+    /**
+     * Check that listing failed because the prefix doesn't exist.
+     * @param err Listing failure
+     * @return True if the prefix doesn't exist
+     */
+    private static boolean missing(final Throwable err) {
+        Throwable cause = err;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof NoSuchFileException;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Move storage value from one key to another.
+ * <p>
+ * Asto {@link Storage} doesn't support move operation yet, so it's
+ * implemented here: generic implementation copies the data, file-system
+ * implementation renames the file without touching its content.
+ * </p>
+ * @since 0.2
+ * @todo #41:30min Use asto Storage move and delete operations when they
+ *  are released. Then Move.Copy can be removed, since it is not able
+ *  to remove source key, but only truncates it to zero length.
+ */
+public interface Move {
+
+    /**
+     * Move value.
+     * @param source Source key
+     * @param target Target key
+     * @return Future which completes when value is moved
+     */
+    CompletableFuture<Void> move(Key source, Key target);
+
+    /**
+     * Replace value of the key with new content at once, so readers see
+     * either previous or new value.
+     * @param target Target key
+     * @param content New content
+     * @return Future which completes when value is replaced
+     */
+    CompletableFuture<Void> replace(Key target, Flow.Publisher<ByteBuffer> content);
+
+    /**
+     * Move by copying the data from source to target key.
+     * <p>
+     * Works on any storage, but data is read and written again.
+     * Source value is truncated after copy.
+     * </p>
+     * @since 0.2
+     */
+    final class Copy implements Move {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         */
+        public Copy(final Storage asto) {
+            this.asto = asto;
+        }
+
+        @Override
+        public CompletableFuture<Void> move(final Key source, final Key target) {
+            return this.asto.value(source)
+                .thenCompose(pub -> this.asto.save(target, pub))
+                .thenCompose(
+                    none -> this.asto.save(
+                        source, FlowAdapters.toFlowPublisher(Flowable.empty())
+                    )
+                );
+        }
+
+        /**
+         * Save content to target key in place.
+         * <p>
+         * Generic storage can't rename values, so replacement is atomic only
+         * if storage save is atomic. No temporary key is used, since it
+         * couldn't be removed.
+         * </p>
+         * @param target Target key
+         * @param content New content
+         * @return Future which completes when value is saved
+         */
+        @Override
+        public CompletableFuture<Void> replace(final Key target,
+            final Flow.Publisher<ByteBuffer> content) {
+            return this.asto.save(target, content);
+        }
+    }
+
+    /**
+     * Move by renaming a file of file-system storage.
+     * <p>
+     * Should be used only with {@link com.artipie.asto.fs.FileStorage}
+     * with the same root directory.
+     * </p>
+     * @since 0.2
+     */
+    final class FileSystem implements Move {
+
+        /**
+         * Storage root directory.
+         */
+        private final Path root;
+
+        /**
+         * Ctor.
+         * @param root Storage root directory
+         */
+        public FileSystem(final Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public CompletableFuture<Void> move(final Key source, final Key target) {
+            return CompletableFuture.runAsync(
+                () -> {
+                    final Path dest = Paths.get(this.root.toString(), target.string());
+                    try {
+                        Files.createDirectories(dest.getParent());
+                        Files.move(
+                            Paths.get(this.root.toString(), source.string()), dest,
+                            StandardCopyOption.ATOMIC_MOVE
+                        );
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                }
+            );
+        }
+
+        /**
+         * Write content to temporary file in target directory and rename
+         * it to target file atomically. Temporary file is removed on failure.
+         * @param target Target key
+         * @param content New content
+         * @return Future which completes when value is replaced
+         */
+        @Override
+        public CompletableFuture<Void> replace(final Key target,
+            final Flow.Publisher<ByteBuffer> content) {
+            final Path dest = Paths.get(this.root.toString(), target.string());
+            final Path tmp = dest.resolveSibling(
+                String.format(".%s.%s", dest.getFileName(), UUID.randomUUID())
+            );
+            final ChannelWriter writer = new ChannelWriter(tmp, buf -> { }, buf -> { });
+            content.subscribe(writer);
+            return writer.result().thenAccept(
+                size -> {
+                    try {
+                        Files.move(tmp, dest, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                }
+            ).whenComplete(
+                (none, err) -> {
+                    if (err != null) {
+                        try {
+                            Files.deleteIfExists(tmp);
+                        } catch (final IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }
+                }
+            );
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.misc.RangeFlow;
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Read a range of storage value bytes.
+ * <p>
+ * Asto {@link Storage} can read only the whole value, so generic
+ * implementation skips the bytes before the range, file-system
+ * implementation maps the range of the file into memory.
+ * </p>
+ * @since 0.2
+ */
+public interface ReadRange {
+
+    /**
+     * Read range of the value.
+     * Range is truncated if the value ends before it.
+     * @param key Value key
+     * @param offset Range offset in bytes
+     * @param length Range length in bytes
+     * @return Future with range data
+     */
+    CompletableFuture<Flow.Publisher<ByteBuffer>> read(Key key, long offset, long length);
+
+    /**
+     * Read range by skipping the data before it.
+     * <p>
+     * Works on any storage, but the data before the range is read.
+     * </p>
+     * @since 0.2
+     */
+    final class Skip implements ReadRange {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         */
+        public Skip(final Storage asto) {
+            this.asto = asto;
+        }
+
+        @Override
+        public CompletableFuture<Flow.Publisher<ByteBuffer>> read(final Key key,
+            final long offset, final long length) {
+            return this.asto.value(key).thenApply(pub -> new RangeFlow(pub, offset, length));
+        }
+    }
+
+    /**
+     * Read range of file-system storage file by mapping it into memory.
+     * <p>
+     * File is mapped by windows and emitted as read-only slices of mapped
+     * buffers, so data is not copied to heap. Should be used only with
+     * {@link com.artipie.asto.fs.FileStorage} with the same root directory.
+     * </p>
+     * @since 0.2
+     */
+    final class FileSystem implements ReadRange {
+
+        /**
+         * Size of emitted chunk.
+         */
+        private static final int CHUNK = 1024 * 1024;
+
+        /**
+         * Size of mapped window.
+         */
+        private static final int WINDOW = 64 * 1024 * 1024;
+
+        /**
+         * Storage root directory.
+         */
+        private final Path root;
+
+        /**
+         * Ctor.
+         * @param root Storage root directory
+         */
+        public FileSystem(final Path root) {
+            this.root = root;
+        }
+
+        @Override
+        public CompletableFuture<Flow.Publisher<ByteBuffer>> read(final Key key,
+            final long offset, final long length) {
+            return CompletableFuture.supplyAsync(
+                () -> {
+                    if (offset < 0 || length < 0) {
+                        throw new IllegalStateException(
+                            String.format("Invalid range: offset=%d, length=%d", offset, length)
+                        );
+                    }
+                    final Path path = Paths.get(this.root.toString(), key.string());
+                    if (!Files.isRegularFile(path)) {
+                        throw new IllegalStateException(
+                            String.format("Value %s doesn't exist", key.string())
+                        );
+                    }
+                    return FlowAdapters.toFlowPublisher(
+                        Flowable.generate(
+                            () -> new ReadRange.FileSystem.Cursor(
+                                FileChannel.open(path, StandardOpenOption.READ), offset, length
+                            ),
+                            ReadRange.FileSystem.Cursor::next,
+                            ReadRange.FileSystem.Cursor::close
+                        )
+                    );
+                }
+            );
+        }
+
+        /**
+         * Mapped file read position.
+         * @since 0.2
+         */
+        private static final class Cursor {
+
+            /**
+             * File channel.
+             */
+            private final FileChannel chan;
+
+            /**
+             * Position of the next window.
+             */
+            private long pos;
+
+            /**
+             * Bytes left to map.
+             */
+            private long left;
+
+            /**
+             * Current mapped window.
+             */
+            private ByteBuffer window;
+
+            /**
+             * Ctor.
+             * @param chan File channel
+             * @param pos Read position
+             * @param left Bytes to read
+             */
+            Cursor(final FileChannel chan, final long pos, final long left) {
+                this.chan = chan;
+                this.pos = pos;
+                this.left = left;
+                this.window = ByteBuffer.allocate(0);
+            }
+
+            /**
+             * Emit next chunk.
+             * @param emitter Emitter
+             * @throws IOException On read error
+             */
+            void next(final Emitter<ByteBuffer> emitter) throws IOException {
+                if (!this.window.hasRemaining()) {
+                    final long size = Math.min(
+                        Math.min(this.left, ReadRange.FileSystem.WINDOW),
+                        Math.max(0L, this.chan.size() - this.pos)
+                    );
+                    if (size > 0) {
+                        this.window = this.chan.map(
+                            FileChannel.MapMode.READ_ONLY, this.pos, size
+                        );
+                        this.pos += size;
+                        this.left -= size;
+                    }
+                }
+                if (this.window.hasRemaining()) {
+                    final ByteBuffer chunk = this.window.slice();
+                    chunk.limit(Math.min(ReadRange.FileSystem.CHUNK, chunk.remaining()));
+                    this.window.position(this.window.position() + chunk.remaining());
+                    emitter.onNext(chunk.asReadOnlyBuffer());
+                } else {
+                    emitter.onComplete();
+                }
+            }
+
+            /**
+             * Close file channel.
+             * @throws IOException On close error
+             */
+            void close() throws IOException {
+                this.chan.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.misc.BytesFlowAs;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Sorted index of names stored in single file.
+ * <p>
+ * Index file contains unique names in lexical order, one per line.
+ * Pages are served from cached index by binary search, so page read
+ * doesn't depend on index size. Updates are serialized per index and
+ * replace index at once by move operation.
+ * </p>
+ * @since 0.2
+ */
+final class SortedIndex {
+
+    /**
+     * Key of registry repositories index.
+     */
+    static final Key CATALOG = new Key.From(RegistryRoot.V2, "_index", "catalog");
+
+    /**
+     * Max index size in bytes, enough for about half a million names.
+     */
+    private static final long LIMIT = 64L * 1024 * 1024;
+
+    /**
+     * Index chunks requested at once.
+     */
+    private static final int PREFETCH = 64;
+
+    /**
+     * Storage.
+     */
+    private final Storage asto;
+
+    /**
+     * Index key.
+     */
+    private final Key key;
+
+    /**
+     * Caches.
+     */
+    private final Caches cache;
+
+    /**
+     * Move operation.
+     */
+    private final Move mvr;
+
+    /**
+     * Ctor.
+     * @param asto Storage
+     * @param key Index key
+     * @param cache Caches
+     * @param mvr Move operation
+     */
+    SortedIndex(final Storage asto, final Key key, final Caches cache, final Move mvr) {
+        this.asto = asto;
+        this.key = key;
+        this.cache = cache;
+        this.mvr = mvr;
+    }
+
+    /**
+     * Page of names.
+     * @param last Last name of previous page, empty string for first page
+     * @param limit Max number of names
+     * @return Future with names following last one in lexical order
+     */
+    CompletableFuture<List<String>> page(final String last, final int limit) {
+        return this.cache.indexes().get(this.key.string(), ignored -> this.read()).thenApply(
+            names -> {
+                int from = Collections.binarySearch(names, last);
+                if (from < 0) {
+                    from = -from - 1;
+                } else {
+                    from += 1;
+                }
+                return names.subList(from, from + Math.min(names.size() - from, limit));
+            }
+        );
+    }
+
+    /**
+     * Add name to existing index.
+     * <p>
+     * Does nothing if index doesn't exist: it will be built with all names
+     * by {@link #build(Supplier)}. Index is not updated if cached index
+     * already contains the name, so repeated additions are cheap.
+     * </p>
+     * @param name Name
+     * @return Future which completes when name is added
+     */
+    CompletableFuture<Void> add(final String name) {
+        return this.cache.indexes().get(this.key.string(), ignored -> this.read()).thenCompose(
+            names -> {
+                final CompletableFuture<Void> res;
+                if (Collections.binarySearch(names, name) < 0) {
+                    res = this.insert(name);
+                } else {
+                    res = CompletableFuture.completedFuture(null);
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Build index if it doesn't exist.
+     * <p>
+     * Index is not written if there are no names, so reading from empty
+     * repository or registry doesn't write to the storage.
+     * </p>
+     * @param names Source of all names, used only if index doesn't exist
+     * @return Future which completes when index is built
+     */
+    CompletableFuture<Void> build(final Supplier<CompletableFuture<Collection<String>>> names) {
+        return this.cache.updates().run(
+            this.key.string(),
+            () -> this.asto.exists(this.key).thenCompose(
+                exists -> {
+                    final CompletableFuture<Void> res;
+                    if (exists) {
+                        res = CompletableFuture.completedFuture(null);
+                    } else {
+                        res = names.get().thenCompose(
+                            all -> {
+                                final CompletableFuture<Void> write;
+                                if (all.isEmpty()) {
+                                    write = CompletableFuture.completedFuture(null);
+                                } else {
+                                    write = this.write(new TreeSet<>(all));
+                                }
+                                return write;
+                            }
+                        );
+                    }
+                    return res;
+                }
+            )
+        );
+    }
+
+    /**
+     * Insert name to existing index if it's missing.
+     * @param name Name
+     * @return Future which completes when name is inserted
+     */
+    private CompletableFuture<Void> insert(final String name) {
+        return this.cache.updates().run(
+            this.key.string(),
+            () -> this.asto.exists(this.key).thenCompose(
+                exists -> {
+                    final CompletableFuture<Void> res;
+                    if (exists) {
+                        res = this.read().thenCompose(
+                            names -> {
+                                final CompletableFuture<Void> upd;
+                                if (Collections.binarySearch(names, name) < 0) {
+                                    final Collection<String> all = new TreeSet<>(names);
+                                    all.add(name);
+                                    upd = this.write(all);
+                                } else {
+                                    upd = CompletableFuture.completedFuture(null);
+                                }
+                                return upd;
+                            }
+                        );
+                    } else {
+                        res = CompletableFuture.completedFuture(null);
+                    }
+                    return res;
+                }
+            )
+        );
+    }
+
+    /**
+     * Read index from storage.
+     * @return Future with sorted names, empty if index doesn't exist
+     */
+    private CompletableFuture<List<String>> read() {
+        return this.asto.exists(this.key).thenCompose(
+            exists -> {
+                final CompletableFuture<List<String>> res;
+                if (exists) {
+                    res = this.asto.value(this.key)
+                        .thenCompose(
+                            pub -> new BytesFlowAs.Bytes(
+                                pub, new BytesFlowAs.Window(SortedIndex.PREFETCH, SortedIndex.LIMIT)
+                            ).future()
+                        ).thenApply(SortedIndex::parse);
+                } else {
+                    res = CompletableFuture.completedFuture(Collections.emptyList());
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Write sorted names to index.
+     * @param names Sorted names
+     * @return Future which completes when index is replaced
+     */
+    private CompletableFuture<Void> write(final Collection<String> names) {
+        return this.mvr.replace(
+            this.key,
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromCallable(
+                    () -> ByteBuffer.wrap(
+                        String.join("\n", names).getBytes(StandardCharsets.UTF_8)
+                    )
+                )
+            )
+        ).thenRun(() -> this.cache.indexes().invalidate(this.key.string()));
+    }
+
+    /**
+     * Parse index content.
+     * @param content Index content
+     * @return Sorted names
+     */
+    private static List<String> parse(final ByteBuffer content) {
+        final List<String> res;
+        if (content.hasRemaining()) {
+            res = Collections.unmodifiableList(
+                Arrays.asList(StandardCharsets.UTF_8.decode(content).toString().split("\n"))
+            );
+        } else {
+            res = Collections.emptyList();
+        }
+        return res;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.docker.misc.BytesFlowAs;
+import com.artipie.docker.misc.PeekedFlow;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Spool of blob data, which keeps uploaded data until its digest
+ * is known and the data can be stored by blob key.
+ * @since 0.2
+ */
+public interface Spool {
+
+    /**
+     * Spool the data.
+     * @param data Data flow
+     * @return Future which completes when the whole data is spooled
+     */
+    CompletableFuture<Spooled> spool(Flow.Publisher<ByteBuffer> data);
+
+    /**
+     * Spooled data.
+     * @since 0.2
+     */
+    interface Spooled {
+
+        /**
+         * Store spooled data to the storage and remove it from the spool.
+         * @param target Target key
+         * @return Future which completes when the data is stored
+         */
+        CompletableFuture<Void> store(Key target);
+
+        /**
+         * Remove the data from the spool without storing it.
+         * @return Future which completes when the data is removed
+         */
+        CompletableFuture<Void> discard();
+    }
+
+    /**
+     * Spool in uploads area of the storage.
+     * <p>
+     * Data is saved by <code>uploads/&lt;uuid&gt;</code> key and then moved
+     * to the target key, which doesn't copy the data on file-system storage.
+     * </p>
+     * @since 0.2
+     */
+    final class Uploads implements Spool {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Move operation.
+         */
+        private final Move mvr;
+
+        /**
+         * Delete operation.
+         */
+        private final Delete del;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         * @param mvr Move operation for the storage
+         * @param del Delete operation for the storage
+         */
+        public Uploads(final Storage asto, final Move mvr, final Delete del) {
+            this.asto = asto;
+            this.mvr = mvr;
+            this.del = del;
+        }
+
+        @Override
+        public CompletableFuture<Spooled> spool(final Flow.Publisher<ByteBuffer> data) {
+            final Key upload = new Key.From(
+                RegistryRoot.V2, "uploads", UUID.randomUUID().toString()
+            );
+            return this.asto.save(upload, data).handle(
+                (none, err) -> {
+                    final CompletableFuture<Spooled> res;
+                    if (err == null) {
+                        res = CompletableFuture.completedFuture(
+                            new Spooled() {
+                                @Override
+                                public CompletableFuture<Void> store(final Key target) {
+                                    return Uploads.this.mvr.move(upload, target);
+                                }
+
+                                @Override
+                                public CompletableFuture<Void> discard() {
+                                    return Uploads.this.del.delete(upload);
+                                }
+                            }
+                        );
+                    } else {
+                        res = this.del.delete(upload).handle((nothing, ignored) -> nothing)
+                            .thenCompose(nothing -> CompletableFuture.failedFuture(err));
+                    }
+                    return res;
+                }
+            ).thenCompose(Function.identity());
+        }
+    }
+
+    /**
+     * Spool in memory.
+     * <p>
+     * Data is accumulated in heap buffer, spooling fails if data is
+     * larger than the limit.
+     * </p>
+     * @since 0.2
+     */
+    final class Memory implements Spool {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Max data size.
+         */
+        private final long limit;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         * @param limit Max data size in bytes
+         */
+        public Memory(final Storage asto, final long limit) {
+            this.asto = asto;
+            this.limit = limit;
+        }
+
+        @Override
+        public CompletableFuture<Spooled> spool(final Flow.Publisher<ByteBuffer> data) {
+            return new BytesFlowAs.Bytes(
+                // @checkstyle MagicNumberCheck (1 line)
+                data, new BytesFlowAs.Window(16, this.limit)
+            ).future().thenApply(
+                buf -> new Spooled() {
+                    @Override
+                    public CompletableFuture<Void> store(final Key target) {
+                        return Memory.this.asto.save(
+                            target,
+                            FlowAdapters.toFlowPublisher(Flowable.fromCallable(buf::duplicate))
+                        );
+                    }
+
+                    @Override
+                    public CompletableFuture<Void> discard() {
+                        return CompletableFuture.allOf();
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Spool in local directory with size quota.
+     * <p>
+     * Data is written to the file in the directory and then copied to
+     * the storage. Total size of spooled files is limited by quota, which
+     * is shared by all spools of this object: spooling fails as soon as
+     * quota is exceeded.
+     * </p>
+     * @since 0.2
+     */
+    final class Directory implements Spool {
+
+        /**
+         * Storage.
+         */
+        private final Storage asto;
+
+        /**
+         * Spool directory.
+         */
+        private final Path dir;
+
+        /**
+         * Quota in bytes.
+         */
+        private final long quota;
+
+        /**
+         * Used bytes.
+         */
+        private final AtomicLong used;
+
+        /**
+         * Ctor.
+         * @param asto Storage
+         * @param dir Spool directory
+         * @param quota Quota of the directory in bytes
+         */
+        public Directory(final Storage asto, final Path dir, final long quota) {
+            this.asto = asto;
+            this.dir = dir;
+            this.quota = quota;
+            this.used = new AtomicLong();
+        }
+
+        /**
+         * Bytes used by spooled files.
+         * @return Used bytes
+         */
+        public long used() {
+            return this.used.get();
+        }
+
+        @Override
+        public CompletableFuture<Spooled> spool(final Flow.Publisher<ByteBuffer> data) {
+            final String name = UUID.randomUUID().toString();
+            final Path file = this.dir.resolve(name);
+            final AtomicLong reserved = new AtomicLong();
+            final ChannelWriter writer = new ChannelWriter(
+                file, chunk -> this.reserve(reserved, chunk.remaining()), chunk -> { }
+            );
+            data.subscribe(writer);
+            return writer.result().handle(
+                (size, err) -> {
+                    final CompletableFuture<Spooled> res;
+                    if (err == null) {
+                        res = CompletableFuture.completedFuture(
+                            new Spooled() {
+                                @Override
+                                public CompletableFuture<Void> store(final Key target) {
+                                    return new ReadRange.FileSystem(Directory.this.dir)
+                                        .read(new Key.From(name), 0, Long.MAX_VALUE)
+                                        .thenCompose(pub -> Directory.this.asto.save(target, pub))
+                                        .thenCompose(none -> this.discard());
+                                }
+
+                                @Override
+                                public CompletableFuture<Void> discard() {
+                                    return Directory.this.remove(file, reserved);
+                                }
+                            }
+                        );
+                    } else {
+                        res = this.remove(file, reserved).handle((none, ignored) -> none)
+                            .thenCompose(none -> CompletableFuture.failedFuture(err));
+                    }
+                    return res;
+                }
+            ).thenCompose(Function.identity());
+        }
+
+        /**
+         * Reserve quota for the chunk.
+         * @param reserved Bytes reserved by the spool
+         * @param size Chunk size
+         */
+        private void reserve(final AtomicLong reserved, final long size) {
+            if (this.used.addAndGet(size) > this.quota) {
+                this.used.addAndGet(-size);
+                throw new IllegalStateException(
+                    String.format("Spool directory quota of %d bytes is exceeded", this.quota)
+                );
+            }
+            reserved.addAndGet(size);
+        }
+
+        /**
+         * Remove spooled file and release its quota.
+         * @param file Spooled file
+         * @param reserved Bytes reserved by the spool
+         * @return Future which completes when removed
+         */
+        private CompletableFuture<Void> remove(final Path file, final AtomicLong reserved) {
+            return CompletableFuture.runAsync(
+                () -> {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    } finally {
+                        this.used.addAndGet(-reserved.getAndSet(0));
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Spool selected by data size.
+     * <p>
+     * Data head up to the threshold is buffered in memory: if the data
+     * fits, it's spooled by small data spool, otherwise by large one.
+     * </p>
+     * @since 0.2
+     */
+    final class BySize implements Spool {
+
+        /**
+         * Max size of small data.
+         */
+        private final long threshold;
+
+        /**
+         * Spool for small data.
+         */
+        private final Spool small;
+
+        /**
+         * Spool for large data.
+         */
+        private final Spool large;
+
+        /**
+         * Ctor.
+         * @param threshold Max size of small data in bytes
+         * @param small Spool for small data
+         * @param large Spool for large data
+         */
+        public BySize(final long threshold, final Spool small, final Spool large) {
+            this.threshold = threshold;
+            this.small = small;
+            this.large = large;
+        }
+
+        @Override
+        public CompletableFuture<Spooled> spool(final Flow.Publisher<ByteBuffer> data) {
+            final PeekedFlow peeked = new PeekedFlow(data, this.threshold);
+            return peeked.fits().thenCompose(
+                fits -> {
+                    final Spool target;
+                    if (fits) {
+                        target = this.small;
+                    } else {
+                        target = this.large;
+                    }
+                    return target.spool(peeked);
+                }
+            );
+        }
+    }
+}
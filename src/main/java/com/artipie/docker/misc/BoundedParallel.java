@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Asynchronous operations over items with bounded parallelism.
+ * <p>
+ * At most limit operations are in flight at any time: each worker takes
+ * next item as soon as its previous operation completes. Fails with the
+ * first operation failure, no new items are taken after a failure.
+ * </p>
+ * @param <T> Item type
+ * @since 0.2
+ */
+public final class BoundedParallel<T> {
+
+    /**
+     * Items.
+     */
+    private final List<T> items;
+
+    /**
+     * Max number of operations in flight.
+     */
+    private final int limit;
+
+    /**
+     * Ctor.
+     * @param items Items
+     * @param limit Max number of operations in flight
+     */
+    public BoundedParallel(final List<T> items, final int limit) {
+        if (limit < 1) {
+            throw new IllegalStateException(
+                String.format("Parallelism limit should be positive: %d", limit)
+            );
+        }
+        this.items = items;
+        this.limit = limit;
+    }
+
+    /**
+     * Run operation for each item.
+     * @param operation Operation
+     * @return Future which completes when all operations are completed
+     */
+    public CompletableFuture<Void> forEach(
+        final Function<T, ? extends CompletionStage<?>> operation) {
+        final AtomicInteger next = new AtomicInteger();
+        final int workers = Math.min(this.limit, this.items.size());
+        final CompletableFuture<?>[] all = new CompletableFuture<?>[workers];
+        for (int idx = 0; idx < workers; ++idx) {
+            final CompletableFuture<Void> worker = new CompletableFuture<>();
+            this.work(next, operation, worker);
+            all[idx] = worker;
+        }
+        return CompletableFuture.allOf(all);
+    }
+
+    /**
+     * Run operations one by one until items are exhausted.
+     * <p>
+     * Operations which are already completed are processed in a loop,
+     * worker continues in a callback only after operation which is still
+     * running, so stack depth doesn't grow with number of items.
+     * </p>
+     * @param next Next item index
+     * @param operation Operation
+     * @param worker Worker future, completes when worker has no more items
+     */
+    private void work(final AtomicInteger next,
+        final Function<T, ? extends CompletionStage<?>> operation,
+        final CompletableFuture<Void> worker) {
+        boolean running = true;
+        while (running) {
+            final int idx = next.getAndIncrement();
+            if (idx < this.items.size()) {
+                final CompletableFuture<?> res = BoundedParallel.apply(
+                    operation, this.items.get(idx)
+                );
+                if (!res.isDone() || res.isCompletedExceptionally()) {
+                    running = false;
+                    res.whenComplete(
+                        (ignored, err) -> {
+                            if (err == null) {
+                                this.work(next, operation, worker);
+                            } else {
+                                next.set(this.items.size());
+                                worker.completeExceptionally(err);
+                            }
+                        }
+                    );
+                }
+            } else {
+                running = false;
+                worker.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Apply operation to item, failure of operation call fails the future.
+     * @param operation Operation
+     * @param item Item
+     * @param <T> Item type
+     * @return Future of operation
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private static <T> CompletableFuture<?> apply(
+        final Function<T, ? extends CompletionStage<?>> operation, final T item) {
+        CompletableFuture<?> res;
+        try {
+            res = operation.apply(item).toCompletableFuture();
+        } catch (final RuntimeException ex) {
+            res = CompletableFuture.failedFuture(ex);
+        }
+        return res;
+    }
+}
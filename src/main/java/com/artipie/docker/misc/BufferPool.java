@@ -0,0 +1,244 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct byte buffers by size classes.
+ * <p>
+ * Size classes are powers of two from 4 KiB to 1 MiB, acquired buffer
+ * has capacity of the smallest class which fits requested size and limit
+ * set to requested size. Buffers larger than max class are allocated
+ * without pooling. Buffer should be released by its last user, after that
+ * it must not be used anymore. Pool counts lent buffers by size class
+ * and doesn't reference them, so lent buffer which is never released is
+ * just collected as garbage. Released buffer is pooled only while its
+ * class has lent buffers and only if it is writable direct buffer of class
+ * capacity: heap, read-only and foreign-sized buffers are dropped.
+ * Pool can't tell lent buffer from its duplicate, so buffer should be
+ * released once, by its last user.
+ * </p>
+ * @since 0.2
+ */
+public final class BufferPool {
+
+    /**
+     * Min class size as power of two.
+     */
+    private static final int MIN_SHIFT = 12;
+
+    /**
+     * Max class size as power of two.
+     */
+    private static final int MAX_SHIFT = 20;
+
+    /**
+     * Default max number of pooled buffers per class.
+     */
+    private static final int LIMIT = 64;
+
+    /**
+     * Free buffers by class.
+     */
+    private final List<Queue<ByteBuffer>> free;
+
+    /**
+     * Number of free buffers by class.
+     */
+    private final List<AtomicInteger> counts;
+
+    /**
+     * Number of lent buffers by class.
+     */
+    private final List<AtomicInteger> lent;
+
+    /**
+     * Max number of pooled buffers per class.
+     */
+    private final int limit;
+
+    /**
+     * Hits counter.
+     */
+    private final AtomicLong hit;
+
+    /**
+     * Misses counter.
+     */
+    private final AtomicLong miss;
+
+    /**
+     * Dropped buffers counter.
+     */
+    private final AtomicLong dropped;
+
+    /**
+     * Pool with default limit of buffers per class.
+     */
+    public BufferPool() {
+        this(BufferPool.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     * @param limit Max number of pooled buffers per class
+     */
+    public BufferPool(final int limit) {
+        this.limit = limit;
+        final int classes = BufferPool.MAX_SHIFT - BufferPool.MIN_SHIFT + 1;
+        this.free = new ArrayList<>(classes);
+        this.counts = new ArrayList<>(classes);
+        this.lent = new ArrayList<>(classes);
+        for (int idx = 0; idx < classes; ++idx) {
+            this.free.add(new ConcurrentLinkedQueue<>());
+            this.counts.add(new AtomicInteger());
+            this.lent.add(new AtomicInteger());
+        }
+        this.hit = new AtomicLong();
+        this.miss = new AtomicLong();
+        this.dropped = new AtomicLong();
+    }
+
+    /**
+     * Acquire buffer.
+     * @param size Required size in bytes
+     * @return Cleared direct buffer with limit set to the size
+     */
+    public ByteBuffer acquire(final int size) {
+        final int cls = BufferPool.sizeClass(size);
+        ByteBuffer buf = null;
+        if (cls < this.free.size()) {
+            buf = this.free.get(cls).poll();
+        }
+        if (buf == null) {
+            this.miss.incrementAndGet();
+            if (cls < this.free.size()) {
+                buf = ByteBuffer.allocateDirect(BufferPool.classSize(cls));
+            } else {
+                buf = ByteBuffer.allocateDirect(size);
+            }
+        } else {
+            this.counts.get(cls).decrementAndGet();
+            this.hit.incrementAndGet();
+        }
+        if (cls < this.free.size()) {
+            this.lent.get(cls).incrementAndGet();
+        }
+        buf.clear().limit(size);
+        return buf;
+    }
+
+    /**
+     * Release buffer to the pool.
+     * <p>
+     * Buffer is pooled only if it could be acquired from this pool and
+     * its class has lent buffers, other buffers are dropped.
+     * </p>
+     * @param buf Buffer which is not used anymore
+     */
+    public void release(final ByteBuffer buf) {
+        final int cls = BufferPool.sizeClass(buf.capacity());
+        boolean pooled = false;
+        if (buf.isDirect() && !buf.isReadOnly() && cls < this.free.size()
+            && buf.capacity() == BufferPool.classSize(cls)
+            && this.lent.get(cls).getAndUpdate(num -> Math.max(num - 1, 0)) > 0) {
+            if (this.counts.get(cls).incrementAndGet() <= this.limit) {
+                this.free.get(cls).offer(buf);
+                pooled = true;
+            } else {
+                this.counts.get(cls).decrementAndGet();
+            }
+        }
+        if (!pooled) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Number of acquired buffers taken from the pool.
+     * @return Hits
+     */
+    public long hits() {
+        return this.hit.get();
+    }
+
+    /**
+     * Number of acquired buffers which were allocated.
+     * @return Misses
+     */
+    public long misses() {
+        return this.miss.get();
+    }
+
+    /**
+     * Number of released buffers which were not pooled.
+     * @return Dropped buffers
+     */
+    public long drops() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Ratio of hits to all acquires.
+     * @return Hit rate from 0 to 1
+     */
+    public double hitRate() {
+        final long hits = this.hit.get();
+        final long total = hits + this.miss.get();
+        double rate = 0;
+        if (total > 0) {
+            rate = (double) hits / total;
+        }
+        return rate;
+    }
+
+    /**
+     * Buffer capacity of size class.
+     * @param cls Class index
+     * @return Capacity in bytes
+     */
+    private static int classSize(final int cls) {
+        return 1 << (cls + BufferPool.MIN_SHIFT);
+    }
+
+    /**
+     * Size class of the size.
+     * @param size Size in bytes
+     * @return Class index
+     */
+    private static int sizeClass(final int size) {
+        return Math.max(
+            0, Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1)
+                - BufferPool.MIN_SHIFT
+        );
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of byte buffers bounded by total size of cached data,
+ * least recently used entries are evicted first.
+ * <p>
+ * Data is copied into cache-owned buffers: heap or direct ones.
+ * Direct buffers keep cached data out of the heap, so the cache doesn't
+ * increase GC pauses. Cached data is returned as read-only views.
+ * </p>
+ * @since 0.2
+ */
+public final class BytesCache {
+
+    /**
+     * Cached buffers, access ordered.
+     */
+    private final Map<String, ByteBuffer> entries;
+
+    /**
+     * Max total size in bytes.
+     */
+    private final long capacity;
+
+    /**
+     * Allocate direct buffers.
+     */
+    private final boolean direct;
+
+    /**
+     * Current total size in bytes.
+     */
+    private final AtomicLong size;
+
+    /**
+     * Hits counter.
+     */
+    private final AtomicLong hit;
+
+    /**
+     * Misses counter.
+     */
+    private final AtomicLong miss;
+
+    /**
+     * Evictions counter.
+     */
+    private final AtomicLong evicted;
+
+    /**
+     * Heap cache.
+     * @param capacity Max total size in bytes
+     */
+    public BytesCache(final long capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Ctor.
+     * @param capacity Max total size in bytes
+     * @param direct Allocate direct (off-heap) buffers
+     */
+    public BytesCache(final long capacity, final boolean direct) {
+        // @checkstyle MagicNumberCheck (1 line)
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacity = capacity;
+        this.direct = direct;
+        this.size = new AtomicLong();
+        this.hit = new AtomicLong();
+        this.miss = new AtomicLong();
+        this.evicted = new AtomicLong();
+    }
+
+    /**
+     * Get cached data.
+     * @param key Key
+     * @return Read-only view of cached data if present
+     */
+    public Optional<ByteBuffer> get(final String key) {
+        final ByteBuffer buf;
+        synchronized (this.entries) {
+            buf = this.entries.get(key);
+        }
+        final Optional<ByteBuffer> res = Optional.ofNullable(buf)
+            .map(ByteBuffer::asReadOnlyBuffer);
+        if (res.isPresent()) {
+            this.hit.incrementAndGet();
+        } else {
+            this.miss.incrementAndGet();
+        }
+        return res;
+    }
+
+    /**
+     * Put data into cache.
+     * <p>
+     * Data is copied, source buffers are not changed.
+     * Data larger than cache capacity is ignored.
+     * </p>
+     * @param key Key
+     * @param chunks Data chunks
+     */
+    public void put(final String key, final Iterable<ByteBuffer> chunks) {
+        long total = 0;
+        for (final ByteBuffer chunk : chunks) {
+            total += chunk.remaining();
+        }
+        if (total <= Math.min(this.capacity, Integer.MAX_VALUE)) {
+            final ByteBuffer copy = this.allocate((int) total);
+            for (final ByteBuffer chunk : chunks) {
+                copy.put(chunk.duplicate());
+            }
+            copy.flip();
+            synchronized (this.entries) {
+                final ByteBuffer prev = this.entries.put(key, copy);
+                if (prev != null) {
+                    this.size.addAndGet(-prev.capacity());
+                }
+                this.size.addAndGet(total);
+                this.evict();
+            }
+        }
+    }
+
+    /**
+     * Number of cache hits.
+     * @return Hits
+     */
+    public long hits() {
+        return this.hit.get();
+    }
+
+    /**
+     * Number of cache misses.
+     * @return Misses
+     */
+    public long misses() {
+        return this.miss.get();
+    }
+
+    /**
+     * Number of evicted entries.
+     * @return Evictions
+     */
+    public long evictions() {
+        return this.evicted.get();
+    }
+
+    /**
+     * Total size of cached data.
+     * @return Size in bytes
+     */
+    public long size() {
+        return this.size.get();
+    }
+
+    /**
+     * Evict least recently used entries until the size fits capacity.
+     * Must be called with entries lock held.
+     */
+    private void evict() {
+        final Iterator<ByteBuffer> iter = this.entries.values().iterator();
+        while (this.size.get() > this.capacity && iter.hasNext()) {
+            this.size.addAndGet(-iter.next().capacity());
+            iter.remove();
+            this.evicted.incrementAndGet();
+        }
+    }
+
+    /**
+     * Allocate new buffer.
+     * @param cap Buffer capacity
+     * @return Byte buffer
+     */
+    private ByteBuffer allocate(final int cap) {
+        final ByteBuffer buf;
+        if (this.direct) {
+            buf = ByteBuffer.allocateDirect(cap);
+        } else {
+            buf = ByteBuffer.allocate(cap);
+        }
+        return buf;
+    }
+}
@@ -24,16 +24,19 @@
 
 package com.artipie.docker.misc;
 
-import com.artipie.asto.Remaining;
+import com.artipie.docker.Digest;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
-import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
 import java.util.concurrent.Flow.Subscription;
@@ -41,6 +44,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import javax.json.Json;
 import javax.json.JsonStructure;
+import javax.json.stream.JsonParser;
 
 /**
  * This class represents {@link Flow.Subscriber} as converted value.
@@ -58,6 +62,11 @@ public abstract class BytesFlowAs<T> {
      */
     private final Accumulator<T> accum;
 
+    /**
+     * Subscription window.
+     */
+    private final Window window;
+
     /**
      * Ctor.
      * @param flow Flow of byte chunks
@@ -65,8 +74,20 @@ public abstract class BytesFlowAs<T> {
      */
     protected BytesFlowAs(final Flow.Publisher<ByteBuffer> flow,
         final Accumulator<T> accum) {
+        this(flow, accum, new Window());
+    }
+
+    /**
+     * Ctor.
+     * @param flow Flow of byte chunks
+     * @param accum Byte chunks accumulator
+     * @param window Subscription window
+     */
+    protected BytesFlowAs(final Flow.Publisher<ByteBuffer> flow,
+        final Accumulator<T> accum, final Window window) {
         this.flow = flow;
         this.accum = accum;
+        this.window = window;
     }
 
     /**
@@ -75,10 +96,67 @@ public abstract class BytesFlowAs<T> {
      */
     public final CompletableFuture<T> future() {
         final CompletableFuture<T> future = new CompletableFuture<>();
-        this.flow.subscribe(new FutureSubscriber<>(future, this.accum));
+        this.flow.subscribe(new FutureSubscriber<>(future, this.accum, this.window));
         return future;
     }
 
+    /**
+     * Subscription window: how many chunks are requested at once
+     * and how many bytes can be received at most.
+     * <p>
+     * Subscriber requests {@code prefetch} chunks on subscribe and
+     * requests more when half of them were received. If total size
+     * of received chunks exceeds the limit, subscription is cancelled
+     * and the value fails.
+     * </p>
+     * @since 0.2
+     */
+    public static final class Window {
+
+        /**
+         * Default prefetch size in chunks.
+         */
+        private static final int PREFETCH = 16;
+
+        /**
+         * Default limit in bytes, the same as docker registry
+         * has for manifests: 4 MiB.
+         */
+        private static final long LIMIT = 4L * 1024 * 1024;
+
+        /**
+         * Number of chunks to request at once.
+         */
+        private final int prefetch;
+
+        /**
+         * Max bytes to receive.
+         */
+        private final long limit;
+
+        /**
+         * Default window.
+         */
+        public Window() {
+            this(Window.PREFETCH, Window.LIMIT);
+        }
+
+        /**
+         * Ctor.
+         * @param prefetch Number of chunks to request at once
+         * @param limit Max bytes to receive
+         */
+        public Window(final int prefetch, final long limit) {
+            if (prefetch < 2) {
+                throw new IllegalArgumentException(
+                    String.format("prefetch must be at least 2, but was %d", prefetch)
+                );
+            }
+            this.prefetch = prefetch;
+            this.limit = limit;
+        }
+    }
+
     /**
      * Subscriber for bytes flow.
      * @param <T> Target type
@@ -101,16 +179,33 @@ public abstract class BytesFlowAs<T> {
          */
         private final AtomicReference<Subscription> sub;
 
+        /**
+         * Subscription window.
+         */
+        private final Window window;
+
+        /**
+         * Chunks received since last request.
+         */
+        private int received;
+
+        /**
+         * Total bytes received.
+         */
+        private long total;
+
         /**
          * Ctor.
          * @param future Result future
          * @param accum Bytes chunks accumulator
+         * @param window Subscription window
          */
         FutureSubscriber(final CompletableFuture<T> future,
-            final Accumulator<T> accum) {
+            final Accumulator<T> accum, final Window window) {
             this.future = future;
             this.sub = new AtomicReference<>();
             this.accum = accum;
+            this.window = window;
         }
 
         @Override
@@ -118,19 +213,38 @@ public abstract class BytesFlowAs<T> {
             if (!this.sub.compareAndSet(null, subs)) {
                 throw new IllegalStateException("flow already subscribed");
             }
-            subs.request(Long.MAX_VALUE);
+            subs.request(this.window.prefetch);
         }
 
         @Override
         public void onNext(final ByteBuffer chunk) {
-            if (this.future.isCancelled()) {
+            if (this.future.isDone()) {
                 this.sub.get().cancel();
+                return;
+            }
+            this.total += chunk.remaining();
+            if (this.total > this.window.limit) {
+                this.sub.get().cancel();
+                this.future.completeExceptionally(
+                    new IllegalStateException(
+                        String.format(
+                            "flow size exceeds the limit of %d bytes", this.window.limit
+                        )
+                    )
+                );
+                return;
             }
             try {
                 this.accum.accept(chunk);
-            } catch (final IOException err) {
+            } catch (final IOException | RuntimeException err) {
                 this.sub.get().cancel();
                 this.future.completeExceptionally(err);
+                return;
+            }
+            this.received += 1;
+            if (this.received >= this.window.prefetch / 2) {
+                this.sub.get().request(this.received);
+                this.received = 0;
             }
         }
 
@@ -143,7 +257,7 @@ public abstract class BytesFlowAs<T> {
         public void onComplete() {
             try {
                 this.future.complete(this.accum.value());
-            } catch (final IOException err) {
+            } catch (final IOException | RuntimeException err) {
                 this.future.completeExceptionally(err);
             }
         }
@@ -181,13 +295,76 @@ public abstract class BytesFlowAs<T> {
          * @param flow Bytes flow
          */
         public JsonObject(final Flow.Publisher<ByteBuffer> flow) {
+            this(flow, new Window());
+        }
+
+        /**
+         * Ctor.
+         * @param flow Bytes flow
+         * @param window Subscription window
+         */
+        public JsonObject(final Flow.Publisher<ByteBuffer> flow, final Window window) {
             super(
                 flow,
-                new BytesFlowAs.StreamAccum<>(inp -> Json.createReader(inp).read())
+                new BytesFlowAs.StreamAccum<>(inp -> Json.createReader(inp).read()),
+                window
             );
         }
     }
 
+    /**
+     * Bytes flow as manifest view.
+     * <p>
+     * Unlike {@link JsonObject} it doesn't build JSON tree of the manifest,
+     * but reads JSON events with streaming parser and keeps only
+     * the fields of {@link ManifestView}.
+     * </p>
+     * @since 0.2
+     */
+    public static final class Manifest extends BytesFlowAs<ManifestView> {
+
+        /**
+         * Ctor.
+         * @param flow Bytes flow
+         */
+        public Manifest(final Flow.Publisher<ByteBuffer> flow) {
+            this(flow, new Window());
+        }
+
+        /**
+         * Ctor.
+         * @param flow Bytes flow
+         * @param window Subscription window
+         */
+        public Manifest(final Flow.Publisher<ByteBuffer> flow, final Window window) {
+            super(flow, new BytesFlowAs.StreamAccum<>(new ManifestFields()), window);
+        }
+    }
+
+    /**
+     * Bytes flow as single byte buffer.
+     * @since 0.2
+     */
+    public static final class Bytes extends BytesFlowAs<ByteBuffer> {
+
+        /**
+         * Ctor.
+         * @param flow Bytes flow
+         */
+        public Bytes(final Flow.Publisher<ByteBuffer> flow) {
+            this(flow, new Window());
+        }
+
+        /**
+         * Ctor.
+         * @param flow Bytes flow
+         * @param window Subscription window
+         */
+        public Bytes(final Flow.Publisher<ByteBuffer> flow, final Window window) {
+            super(flow, new BytesFlowAs.BufferAccum(), window);
+        }
+    }
+
     /**
      * Bytes as text.
      * @since 0.1
@@ -208,31 +385,190 @@ public abstract class BytesFlowAs<T> {
          * @param charset Text encoding
          */
         public Text(final Flow.Publisher<ByteBuffer> flow, final Charset charset) {
-            super(
-                flow,
-                new BytesFlowAs.StreamAccum<>(
-                    inp -> new Scanner(inp, charset).useDelimiter("\\A").next()
-                )
-            );
+            this(flow, charset, new Window());
+        }
+
+        /**
+         * Bytes as text with specified charset and subscription window.
+         * @param flow Bytes flow
+         * @param charset Text encoding
+         * @param window Subscription window
+         */
+        public Text(final Flow.Publisher<ByteBuffer> flow, final Charset charset,
+            final Window window) {
+            super(flow, new BytesFlowAs.TextAccum(charset), window);
+        }
+    }
+
+    /**
+     * Function which reads manifest view fields from JSON stream.
+     * @since 0.2
+     */
+    private static final class ManifestFields implements Function<InputStream, ManifestView> {
+
+        /**
+         * Array item path element.
+         */
+        private static final String ITEM = "*";
+
+        @Override
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        public ManifestView apply(final InputStream inp) {
+            String media = "";
+            Optional<Digest> cfg = Optional.empty();
+            final List<Digest> layers = new ArrayList<>(0);
+            final List<Digest> manifests = new ArrayList<>(0);
+            final Deque<String> path = new ArrayDeque<>(0);
+            final Deque<Boolean> arrays = new ArrayDeque<>(0);
+            String key = "";
+            try (JsonParser parser = Json.createParser(inp)) {
+                while (parser.hasNext()) {
+                    final JsonParser.Event event = parser.next();
+                    if (event == JsonParser.Event.KEY_NAME) {
+                        key = parser.getString();
+                    } else if (event == JsonParser.Event.START_OBJECT
+                        || event == JsonParser.Event.START_ARRAY) {
+                        path.addLast(ManifestFields.name(arrays, key));
+                        arrays.push(event == JsonParser.Event.START_ARRAY);
+                    } else if (event == JsonParser.Event.END_OBJECT
+                        || event == JsonParser.Event.END_ARRAY) {
+                        path.removeLast();
+                        arrays.pop();
+                    } else if (event == JsonParser.Event.VALUE_STRING) {
+                        final String field = String.join(
+                            "/", String.join("/", path), ManifestFields.name(arrays, key)
+                        );
+                        if ("/mediaType".equals(field)) {
+                            media = parser.getString();
+                        } else if ("/config/digest".equals(field)) {
+                            cfg = Optional.of(new Digest.FromLink(parser.getString()));
+                        } else if ("/layers/*/digest".equals(field)) {
+                            layers.add(new Digest.FromLink(parser.getString()));
+                        } else if ("/manifests/*/digest".equals(field)) {
+                            manifests.add(new Digest.FromLink(parser.getString()));
+                        }
+                    }
+                }
+            }
+            return new ManifestView(media, cfg, layers, manifests);
+        }
+
+        /**
+         * Path element name for current value.
+         * @param arrays Stack of containers, true for array
+         * @param key Last key name
+         * @return Key name or array item name
+         */
+        private static String name(final Deque<Boolean> arrays, final String key) {
+            final String name;
+            if (!arrays.isEmpty() && arrays.peek()) {
+                name = ManifestFields.ITEM;
+            } else {
+                name = key;
+            }
+            return name;
+        }
+    }
+
+    /**
+     * Text accumulator.
+     * <p>
+     * Decodes received chunks joined into one buffer, empty flow is empty text.
+     * </p>
+     * @since 0.2
+     */
+    private static final class TextAccum implements BytesFlowAs.Accumulator<String> {
+
+        /**
+         * Bytes accumulator.
+         */
+        private final BytesFlowAs.BufferAccum bytes;
+
+        /**
+         * Text encoding.
+         */
+        private final Charset charset;
+
+        /**
+         * Ctor.
+         * @param charset Text encoding
+         */
+        TextAccum(final Charset charset) {
+            this.bytes = new BytesFlowAs.BufferAccum();
+            this.charset = charset;
+        }
+
+        @Override
+        public void accept(final ByteBuffer buf) {
+            this.bytes.accept(buf);
+        }
+
+        @Override
+        public String value() {
+            return this.charset.decode(this.bytes.value()).toString();
+        }
+    }
+
+    /**
+     * Byte buffer accumulator.
+     * <p>
+     * Joins received chunks into one buffer, single chunk is returned as is.
+     * </p>
+     * @since 0.2
+     */
+    private static final class BufferAccum implements BytesFlowAs.Accumulator<ByteBuffer> {
+
+        /**
+         * Received chunks.
+         */
+        private final List<ByteBuffer> chunks;
+
+        /**
+         * Ctor.
+         */
+        BufferAccum() {
+            this.chunks = new ArrayList<>(1);
+        }
+
+        @Override
+        public void accept(final ByteBuffer buf) {
+            if (buf.hasRemaining()) {
+                this.chunks.add(buf.slice());
+            }
+        }
+
+        @Override
+        public ByteBuffer value() {
+            final ByteBuffer res;
+            if (this.chunks.size() == 1) {
+                res = this.chunks.get(0);
+            } else {
+                res = ByteBuffer.allocate(
+                    this.chunks.stream().mapToInt(ByteBuffer::remaining).sum()
+                );
+                this.chunks.forEach(res::put);
+                res.flip();
+            }
+            return res;
         }
     }
 
     /**
      * Input stream accumulator.
+     * <p>
+     * Keeps received chunks without copying them and reads them
+     * as input stream when the flow is completed. Chunks must not be
+     * modified by publisher after they were received.
+     * </p>
      * @param <T> Target type
      * @since 1.0
      */
     private static final class StreamAccum<T> implements BytesFlowAs.Accumulator<T> {
 
         /**
-         * Input pipe.
-         */
-        private final PipedInputStream inp;
-
-        /**
-         * Output pipe.
+         * Received chunks.
          */
-        private final PipedOutputStream out;
+        private final List<ByteBuffer> chunks;
 
         /**
          * Function to convert input stream to target object.
@@ -245,32 +581,92 @@ public abstract class BytesFlowAs<T> {
          */
         StreamAccum(final Function<InputStream, T> func) {
             this.func = func;
-            this.out = new PipedOutputStream();
-            this.inp = StreamAccum.pipedInput(this.out);
+            this.chunks = new ArrayList<>(1);
         }
 
         @Override
-        public void accept(final ByteBuffer buf) throws IOException {
-            this.out.write(new Remaining(buf).bytes());
+        public void accept(final ByteBuffer buf) {
+            if (buf.hasRemaining()) {
+                this.chunks.add(buf.slice());
+            }
         }
 
         @Override
         public T value() throws IOException {
-            this.out.close();
-            return this.func.apply(this.inp);
+            try (InputStream inp = new ChunksStream(this.chunks)) {
+                return this.func.apply(inp);
+            }
+        }
+    }
+
+    /**
+     * Input stream over byte buffer chunks.
+     * <p>
+     * Reading consumes the chunks, they are not copied.
+     * </p>
+     * @since 0.2
+     */
+    private static final class ChunksStream extends InputStream {
+
+        /**
+         * Chunks.
+         */
+        private final Iterator<ByteBuffer> chunks;
+
+        /**
+         * Current chunk.
+         */
+        private ByteBuffer current;
+
+        /**
+         * Ctor.
+         * @param chunks Chunks
+         */
+        ChunksStream(final Collection<ByteBuffer> chunks) {
+            super();
+            this.chunks = chunks.iterator();
+            this.current = ByteBuffer.allocate(0);
+        }
+
+        @Override
+        public int read() {
+            final int res;
+            if (this.next()) {
+                res = Byte.toUnsignedInt(this.current.get());
+            } else {
+                res = -1;
+            }
+            return res;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len) {
+            final int res;
+            if (len == 0) {
+                res = 0;
+            } else if (this.next()) {
+                res = Math.min(len, this.current.remaining());
+                this.current.get(buf, off, res);
+            } else {
+                res = -1;
+            }
+            return res;
+        }
+
+        @Override
+        public int available() {
+            return this.current.remaining();
         }
 
         /**
-         * Create new piped input stream from output stream.
-         * @param out Pipe output
-         * @return Pipe input
+         * Move to next chunk if current one is fully read.
+         * @return True if there is data to read
          */
-        private static PipedInputStream pipedInput(final PipedOutputStream out) {
-            try {
-                return new PipedInputStream(out);
-            } catch (final IOException err) {
-                throw new UncheckedIOException(err);
+        private boolean next() {
+            while (!this.current.hasRemaining() && this.chunks.hasNext()) {
+                this.current = this.chunks.next();
             }
+            return this.current.hasRemaining();
         }
     }
 }
@@ -0,0 +1,283 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.docker.BlobStore;
+import com.artipie.docker.Digest;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Blob store decorator which keeps small blobs in memory.
+ * <p>
+ * Blobs are immutable since they are addressed by digest, so cached
+ * data never becomes stale. Blobs are cached when they are read from
+ * origin store and their size is not greater than the threshold, e.g.
+ * manifests and image configs, but not layers.
+ * </p>
+ * @since 0.2
+ */
+public final class CachedBlobs implements BlobStore {
+
+    /**
+     * Origin blob store.
+     */
+    private final BlobStore origin;
+
+    /**
+     * Cache.
+     */
+    private final BytesCache cache;
+
+    /**
+     * Max size of cached blob.
+     */
+    private final long threshold;
+
+    /**
+     * Ctor.
+     * @param origin Origin blob store
+     * @param cache Cache
+     * @param threshold Max size of cached blob in bytes
+     */
+    public CachedBlobs(final BlobStore origin, final BytesCache cache, final long threshold) {
+        this.origin = origin;
+        this.cache = cache;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest) {
+        final String key = CachedBlobs.key(digest);
+        return this.cache.get(key)
+            .map(
+                buf -> CompletableFuture.completedFuture(
+                    FlowAdapters.toFlowPublisher(Flowable.fromCallable(buf::duplicate))
+                )
+            ).orElseGet(
+                () -> this.origin.blob(digest).thenApply(
+                    pub -> new CachedBlobs.Caching(pub, key, this.cache, this.threshold)
+                )
+            );
+    }
+
+    @Override
+    public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest,
+        final long offset, final long length) {
+        return this.cache.get(CachedBlobs.key(digest))
+            .map(
+                buf -> CompletableFuture.<Flow.Publisher<ByteBuffer>>completedFuture(
+                    new RangeFlow(
+                        FlowAdapters.toFlowPublisher(Flowable.fromCallable(buf::duplicate)),
+                        offset, length
+                    )
+                )
+            ).orElseGet(() -> this.origin.blob(digest, offset, length));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(final Digest digest) {
+        final CompletableFuture<Boolean> res;
+        if (this.cache.get(CachedBlobs.key(digest)).isPresent()) {
+            res = CompletableFuture.completedFuture(true);
+        } else {
+            res = this.origin.exists(digest);
+        }
+        return res;
+    }
+
+    @Override
+    public CompletableFuture<Long> size(final Digest digest) {
+        return this.cache.get(CachedBlobs.key(digest))
+            .map(buf -> CompletableFuture.completedFuture((long) buf.remaining()))
+            .orElseGet(() -> this.origin.size(digest));
+    }
+
+    @Override
+    public CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob) {
+        return this.origin.put(blob);
+    }
+
+    @Override
+    public CompletableFuture<Digest> put(final Digest expected,
+        final Flow.Publisher<ByteBuffer> blob) {
+        return this.origin.put(expected, blob);
+    }
+
+    /**
+     * Cache key of blob.
+     * @param digest Blob digest
+     * @return Key string
+     */
+    private static String key(final Digest digest) {
+        return String.join(":", digest.alg(), digest.digest());
+    }
+
+    /**
+     * Publisher which puts data into cache when it's fully read
+     * and it fits the threshold.
+     * @since 0.2
+     */
+    private static final class Caching implements Flow.Publisher<ByteBuffer> {
+
+        /**
+         * Origin publisher.
+         */
+        private final Flow.Publisher<ByteBuffer> pub;
+
+        /**
+         * Cache key.
+         */
+        private final String key;
+
+        /**
+         * Cache.
+         */
+        private final BytesCache cache;
+
+        /**
+         * Max size of cached data.
+         */
+        private final long threshold;
+
+        /**
+         * Ctor.
+         * @param pub Origin publisher
+         * @param key Cache key
+         * @param cache Cache
+         * @param threshold Max size of cached data
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        Caching(final Flow.Publisher<ByteBuffer> pub, final String key,
+            final BytesCache cache, final long threshold) {
+            this.pub = pub;
+            this.key = key;
+            this.cache = cache;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super ByteBuffer> sub) {
+            this.pub.subscribe(
+                new CachedBlobs.CachingSubscriber(sub, this.key, this.cache, this.threshold)
+            );
+        }
+    }
+
+    /**
+     * Subscriber which collects chunks for cache while passing them to target.
+     * <p>
+     * Chunks are copied on arrival, since upstream could reuse or release
+     * the buffer after it's passed to target. Nothing is copied after
+     * received data exceeds the threshold.
+     * </p>
+     * @since 0.2
+     */
+    private static final class CachingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * Target subscriber.
+         */
+        private final Flow.Subscriber<? super ByteBuffer> target;
+
+        /**
+         * Cache key.
+         */
+        private final String key;
+
+        /**
+         * Cache.
+         */
+        private final BytesCache cache;
+
+        /**
+         * Max size of cached data.
+         */
+        private final long threshold;
+
+        /**
+         * Collected chunks.
+         */
+        private final List<ByteBuffer> chunks;
+
+        /**
+         * Total size of received data.
+         */
+        private long total;
+
+        /**
+         * Ctor.
+         * @param target Target subscriber
+         * @param key Cache key
+         * @param cache Cache
+         * @param threshold Max size of cached data
+         * @checkstyle ParameterNumberCheck (3 lines)
+         */
+        CachingSubscriber(final Flow.Subscriber<? super ByteBuffer> target, final String key,
+            final BytesCache cache, final long threshold) {
+            this.target = target;
+            this.key = key;
+            this.cache = cache;
+            this.threshold = threshold;
+            this.chunks = new ArrayList<>(1);
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.target.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer item) {
+            this.total += item.remaining();
+            if (this.total <= this.threshold) {
+                final ByteBuffer copy = ByteBuffer.allocate(item.remaining());
+                copy.put(item.duplicate()).flip();
+                this.chunks.add(copy);
+            } else {
+                this.chunks.clear();
+            }
+            this.target.onNext(item);
+        }
+
+        @Override
+        public void onError(final Throwable err) {
+            this.target.onError(err);
+        }
+
+        @Override
+        public void onComplete() {
+            if (this.total <= this.threshold) {
+                this.cache.put(this.key, this.chunks);
+            }
+            this.target.onComplete();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.util.Arrays;
+
+/**
+ * Compact set of SHA-256 digests.
+ * <p>
+ * Each digest is stored as four longs in single primitive array, which
+ * takes 32 bytes per digest instead of about 200 bytes for hex string in
+ * a hash set. Digests are added in any order, the array is sorted and
+ * deduplicated on first lookup after additions, lookup is binary search.
+ * Hex strings which are not 64 hex characters are ignored by
+ * {@link #add(String)} and are never contained.
+ * </p>
+ * @since 0.2
+ */
+public final class DigestSet {
+
+    /**
+     * Number of longs per digest.
+     */
+    private static final int WORDS = 4;
+
+    /**
+     * Hex characters per long.
+     */
+    private static final int CHARS = 16;
+
+    /**
+     * Initial capacity in digests.
+     */
+    private static final int INITIAL = 16;
+
+    /**
+     * Digests words.
+     */
+    private long[] words;
+
+    /**
+     * Number of digests.
+     */
+    private int count;
+
+    /**
+     * Digests are sorted and unique.
+     */
+    private boolean sorted;
+
+    /**
+     * Ctor.
+     */
+    public DigestSet() {
+        this.words = new long[DigestSet.WORDS * DigestSet.INITIAL];
+        this.sorted = true;
+    }
+
+    /**
+     * Add digest.
+     * @param hex Digest hex
+     * @return True if digest is valid SHA-256 hex and was added
+     */
+    public synchronized boolean add(final String hex) {
+        final long[] digest = DigestSet.parse(hex);
+        final boolean valid = digest.length == DigestSet.WORDS;
+        if (valid) {
+            if (this.words.length < (this.count + 1) * DigestSet.WORDS) {
+                this.words = Arrays.copyOf(this.words, this.words.length * 2);
+            }
+            System.arraycopy(digest, 0, this.words, this.count * DigestSet.WORDS, DigestSet.WORDS);
+            this.count += 1;
+            this.sorted = false;
+        }
+        return valid;
+    }
+
+    /**
+     * Check if set contains digest.
+     * @param hex Digest hex
+     * @return True if contains
+     */
+    public synchronized boolean contains(final String hex) {
+        final long[] digest = DigestSet.parse(hex);
+        boolean res = false;
+        if (digest.length == DigestSet.WORDS) {
+            this.sort();
+            int low = 0;
+            int high = this.count - 1;
+            while (!res && low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int cmp = this.compare(mid, digest);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    res = true;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Number of unique digests.
+     * @return Size
+     */
+    public synchronized int size() {
+        this.sort();
+        return this.count;
+    }
+
+    /**
+     * Check if hex is valid SHA-256 digest hex.
+     * @param hex Digest hex
+     * @return True if valid
+     */
+    public static boolean valid(final String hex) {
+        return DigestSet.parse(hex).length == DigestSet.WORDS;
+    }
+
+    /**
+     * Sort digests in place by heap sort and remove duplicates.
+     */
+    private void sort() {
+        if (!this.sorted) {
+            for (int idx = this.count / 2 - 1; idx >= 0; --idx) {
+                this.sift(idx, this.count);
+            }
+            for (int end = this.count - 1; end > 0; --end) {
+                this.swap(0, end);
+                this.sift(0, end);
+            }
+            int size = Math.min(this.count, 1);
+            for (int idx = 1; idx < this.count; ++idx) {
+                if (this.compare(idx, size - 1) != 0) {
+                    System.arraycopy(
+                        this.words, idx * DigestSet.WORDS,
+                        this.words, size * DigestSet.WORDS, DigestSet.WORDS
+                    );
+                    size += 1;
+                }
+            }
+            this.count = size;
+            this.sorted = true;
+        }
+    }
+
+    /**
+     * Move digest down the max-heap.
+     * @param start Digest index
+     * @param end Heap size
+     */
+    private void sift(final int start, final int end) {
+        int root = start;
+        int child = 2 * root + 1;
+        while (child < end) {
+            if (child + 1 < end && this.compare(child, child + 1) < 0) {
+                child += 1;
+            }
+            if (this.compare(root, child) < 0) {
+                this.swap(root, child);
+                root = child;
+                child = 2 * root + 1;
+            } else {
+                child = end;
+            }
+        }
+    }
+
+    /**
+     * Swap two digests.
+     * @param left Left digest index
+     * @param right Right digest index
+     */
+    private void swap(final int left, final int right) {
+        for (int word = 0; word < DigestSet.WORDS; ++word) {
+            final long tmp = this.words[left * DigestSet.WORDS + word];
+            this.words[left * DigestSet.WORDS + word] = this.words[right * DigestSet.WORDS + word];
+            this.words[right * DigestSet.WORDS + word] = tmp;
+        }
+    }
+
+    /**
+     * Compare two digests of the set.
+     * @param left Left digest index
+     * @param right Right digest index
+     * @return Comparison result
+     */
+    private int compare(final int left, final int right) {
+        return this.compare(left, this.words, right);
+    }
+
+    /**
+     * Compare digest of the set with digest words.
+     * @param idx Digest index
+     * @param digest Digest words
+     * @return Comparison result
+     */
+    private int compare(final int idx, final long[] digest) {
+        return this.compare(idx, digest, 0);
+    }
+
+    /**
+     * Compare digest of the set with digest in words array.
+     * @param idx Digest index
+     * @param other Other words array
+     * @param pos Other digest index
+     * @return Comparison result
+     */
+    private int compare(final int idx, final long[] other, final int pos) {
+        int res = 0;
+        for (int word = 0; res == 0 && word < DigestSet.WORDS; ++word) {
+            res = Long.compareUnsigned(
+                this.words[idx * DigestSet.WORDS + word], other[pos * DigestSet.WORDS + word]
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Parse hex to digest words.
+     * @param hex Digest hex
+     * @return Four words or empty array if hex is not valid
+     */
+    private static long[] parse(final String hex) {
+        long[] res = new long[DigestSet.WORDS];
+        if (hex.length() == DigestSet.WORDS * DigestSet.CHARS) {
+            for (int pos = 0; res.length > 0 && pos < hex.length(); ++pos) {
+                final int val = Character.digit(hex.charAt(pos), DigestSet.CHARS);
+                if (val < 0) {
+                    res = new long[0];
+                } else {
+                    // @checkstyle MagicNumberCheck (1 line)
+                    res[pos / DigestSet.CHARS] = res[pos / DigestSet.CHARS] << 4 | val;
+                }
+            }
+        } else {
+            res = new long[0];
+        }
+        return res;
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.docker.Digest;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.cactoos.io.BytesOf;
+import org.cactoos.text.HexOf;
+import org.cactoos.text.UncheckedText;
+
+/**
+ * Bytes flow which calculates SHA-256 digest of the data passing through it.
+ * <p>
+ * Digest is calculated on the fly, while the subscriber consumes the data,
+ * so the bytes don't have to be read twice. Chunks are hashed in order on
+ * separate executor using read-only views of the buffers, so hashing
+ * overlaps with the work of the subscriber (e.g. writing to storage) and
+ * the position of original buffer is not changed. The number of chunks
+ * received but not hashed yet is bounded: upstream is requested for more
+ * data only when hashing catches up. Chunks must not be modified after
+ * they were passed to the subscriber, until they are hashed: optional
+ * callback is notified with each chunk when it's hashed, e.g. to release
+ * it when the subscriber is done with it too. The flow can be subscribed
+ * only once.
+ * </p>
+ * @since 0.2
+ */
+public final class DigestedFlow implements Flow.Publisher<ByteBuffer> {
+
+    /**
+     * Default max number of chunks waiting for hashing.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * Origin flow.
+     */
+    private final Flow.Publisher<ByteBuffer> origin;
+
+    /**
+     * Hashing executor.
+     */
+    private final Executor exec;
+
+    /**
+     * Max number of chunks waiting for hashing.
+     */
+    private final int capacity;
+
+    /**
+     * Callback for chunk after it's hashed.
+     */
+    private final Consumer<ByteBuffer> hashed;
+
+    /**
+     * Digest result.
+     */
+    private final CompletableFuture<Digest> result;
+
+    /**
+     * Size result.
+     */
+    private final CompletableFuture<Long> length;
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     */
+    public DigestedFlow(final Flow.Publisher<ByteBuffer> origin) {
+        this(origin, chunk -> { });
+    }
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param hashed Callback for chunk after it's hashed
+     */
+    public DigestedFlow(final Flow.Publisher<ByteBuffer> origin,
+        final Consumer<ByteBuffer> hashed) {
+        this(origin, ForkJoinPool.commonPool(), DigestedFlow.CAPACITY, hashed);
+    }
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param exec Hashing executor
+     * @param capacity Max number of chunks waiting for hashing
+     */
+    public DigestedFlow(final Flow.Publisher<ByteBuffer> origin, final Executor exec,
+        final int capacity) {
+        this(origin, exec, capacity, chunk -> { });
+    }
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param exec Hashing executor
+     * @param capacity Max number of chunks waiting for hashing
+     * @param hashed Callback for chunk after it's hashed
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public DigestedFlow(final Flow.Publisher<ByteBuffer> origin, final Executor exec,
+        final int capacity, final Consumer<ByteBuffer> hashed) {
+        this.origin = origin;
+        this.exec = exec;
+        this.capacity = capacity;
+        this.hashed = hashed;
+        this.result = new CompletableFuture<>();
+        this.length = new CompletableFuture<>();
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> sub) {
+        this.origin.subscribe(
+            new DigestedFlow.HashingSubscriber(
+                sub, new DigestedFlow.Hashing(DigestedFlow.sha256(), this.exec),
+                this.capacity, this.hashed, this.result, this.length
+            )
+        );
+    }
+
+    /**
+     * Digest of the data, completes when the flow is finished
+     * and all chunks are hashed, fails if the flow is cancelled.
+     * @return Future with digest
+     */
+    public CompletableFuture<Digest> digest() {
+        return this.result;
+    }
+
+    /**
+     * Size of the data, completes when the flow is finished,
+     * fails if the flow is cancelled.
+     * @return Future with size in bytes
+     */
+    public CompletableFuture<Long> size() {
+        return this.length;
+    }
+
+    /**
+     * New SHA-256 message digest.
+     * @return Message digest
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException err) {
+            throw new IllegalStateException("This runtime doesn't have SHA-256 algorithm", err);
+        }
+    }
+
+    /**
+     * Ordered hashing stage, each chunk is hashed after the previous one.
+     * @since 0.2
+     */
+    private static final class Hashing {
+
+        /**
+         * Message digest.
+         */
+        private final MessageDigest sha;
+
+        /**
+         * Executor.
+         */
+        private final Executor exec;
+
+        /**
+         * Last scheduled hashing task.
+         */
+        private final AtomicReference<CompletableFuture<Void>> last;
+
+        /**
+         * Ctor.
+         * @param sha Message digest
+         * @param exec Executor
+         */
+        Hashing(final MessageDigest sha, final Executor exec) {
+            this.sha = sha;
+            this.exec = exec;
+            this.last = new AtomicReference<>(CompletableFuture.completedFuture(null));
+        }
+
+        /**
+         * Schedule chunk hashing.
+         * @param chunk Read-only chunk
+         * @param done Action to run when chunk is hashed
+         */
+        void update(final ByteBuffer chunk, final Runnable done) {
+            this.last.updateAndGet(
+                prev -> prev.thenRunAsync(
+                    () -> {
+                        this.sha.update(chunk);
+                        done.run();
+                    },
+                    this.exec
+                )
+            );
+        }
+
+        /**
+         * Digest of all hashed chunks.
+         * @return Future with digest
+         */
+        CompletableFuture<Digest> digest() {
+            return this.last.get().thenApply(
+                none -> new Digest.Sha256(
+                    new UncheckedText(new HexOf(new BytesOf(this.sha.digest()))).asString()
+                )
+            );
+        }
+    }
+
+    /**
+     * Subscriber which passes chunks to hashing stage.
+     * @since 0.2
+     */
+    private static final class HashingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * Target subscriber.
+         */
+        private final Flow.Subscriber<? super ByteBuffer> target;
+
+        /**
+         * Hashing stage.
+         */
+        private final Hashing hashing;
+
+        /**
+         * Bounded subscription.
+         */
+        private final BoundedSubscription bounded;
+
+        /**
+         * Callback for chunk after it's hashed.
+         */
+        private final Consumer<ByteBuffer> hashed;
+
+        /**
+         * Digest result.
+         */
+        private final CompletableFuture<Digest> result;
+
+        /**
+         * Size result.
+         */
+        private final CompletableFuture<Long> length;
+
+        /**
+         * Received bytes.
+         */
+        private long total;
+
+        /**
+         * Ctor.
+         * @param target Target subscriber
+         * @param hashing Hashing stage
+         * @param capacity Max number of chunks waiting for hashing
+         * @param hashed Callback for chunk after it's hashed
+         * @param result Digest result
+         * @param length Size result
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        HashingSubscriber(final Flow.Subscriber<? super ByteBuffer> target,
+            final Hashing hashing, final int capacity, final Consumer<ByteBuffer> hashed,
+            final CompletableFuture<Digest> result, final CompletableFuture<Long> length) {
+            this.target = target;
+            this.hashing = hashing;
+            this.bounded = new BoundedSubscription(capacity, result, length);
+            this.hashed = hashed;
+            this.result = result;
+            this.length = length;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.bounded.init(subscription);
+            this.target.onSubscribe(this.bounded);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer chunk) {
+            this.total += chunk.remaining();
+            this.hashing.update(
+                chunk.asReadOnlyBuffer(),
+                () -> {
+                    this.bounded.release();
+                    this.hashed.accept(chunk);
+                }
+            );
+            this.target.onNext(chunk);
+        }
+
+        @Override
+        public void onError(final Throwable err) {
+            this.result.completeExceptionally(err);
+            this.length.completeExceptionally(err);
+            this.target.onError(err);
+        }
+
+        @Override
+        public void onComplete() {
+            this.length.complete(this.total);
+            this.hashing.digest().handle(
+                (digest, err) -> {
+                    if (err == null) {
+                        this.result.complete(digest);
+                    } else {
+                        this.result.completeExceptionally(err);
+                    }
+                    return digest;
+                }
+            );
+            this.target.onComplete();
+        }
+    }
+
+    /**
+     * Subscription which doesn't request more items from upstream
+     * than capacity of hashing stage allows. If it's cancelled before
+     * the flow is finished, digest and size results fail.
+     * @since 0.2
+     */
+    private static final class BoundedSubscription implements Flow.Subscription {
+
+        /**
+         * Upstream subscription.
+         */
+        private final AtomicReference<Flow.Subscription> upstream;
+
+        /**
+         * Capacity.
+         */
+        private final int capacity;
+
+        /**
+         * Digest result.
+         */
+        private final CompletableFuture<Digest> result;
+
+        /**
+         * Size result.
+         */
+        private final CompletableFuture<Long> length;
+
+        /**
+         * Requested by downstream but not requested from upstream yet.
+         */
+        private long demand;
+
+        /**
+         * Requested from upstream but not hashed yet.
+         */
+        private long pending;
+
+        /**
+         * Ctor.
+         * @param capacity Max number of pending items
+         * @param result Digest result
+         * @param length Size result
+         */
+        BoundedSubscription(final int capacity, final CompletableFuture<Digest> result,
+            final CompletableFuture<Long> length) {
+            this.upstream = new AtomicReference<>();
+            this.capacity = capacity;
+            this.result = result;
+            this.length = length;
+        }
+
+        /**
+         * Init with upstream subscription.
+         * @param sub Upstream subscription
+         */
+        void init(final Flow.Subscription sub) {
+            if (!this.upstream.compareAndSet(null, sub)) {
+                throw new IllegalStateException("flow already subscribed");
+            }
+        }
+
+        @Override
+        public void request(final long count) {
+            synchronized (this.upstream) {
+                if (Long.MAX_VALUE - this.demand < count) {
+                    this.demand = Long.MAX_VALUE;
+                } else {
+                    this.demand += count;
+                }
+            }
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!this.length.isDone()) {
+                final CancellationException err = new CancellationException(
+                    "Flow was cancelled before it was finished"
+                );
+                this.result.completeExceptionally(err);
+                this.length.completeExceptionally(err);
+            }
+            this.upstream.get().cancel();
+        }
+
+        /**
+         * Release one hashed item.
+         */
+        void release() {
+            synchronized (this.upstream) {
+                this.pending -= 1;
+            }
+            this.drain();
+        }
+
+        /**
+         * Request items from upstream if possible.
+         */
+        private void drain() {
+            final long count;
+            synchronized (this.upstream) {
+                count = Math.min(this.demand, this.capacity - this.pending);
+                if (count > 0) {
+                    this.demand -= count;
+                    this.pending += count;
+                }
+            }
+            if (count > 0) {
+                this.upstream.get().request(count);
+            }
+        }
+    }
+}
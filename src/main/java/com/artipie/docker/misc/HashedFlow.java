@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Bytes flow which updates resumable SHA-256 state with the data
+ * passing through it.
+ * <p>
+ * The flow can be subscribed only once.
+ * </p>
+ * @since 0.2
+ */
+public final class HashedFlow implements Flow.Publisher<ByteBuffer> {
+
+    /**
+     * Origin flow.
+     */
+    private final Flow.Publisher<ByteBuffer> origin;
+
+    /**
+     * Hash state.
+     */
+    private final Sha256State sha;
+
+    /**
+     * Hash state result.
+     */
+    private final CompletableFuture<Sha256State> result;
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param sha Hash state to continue
+     */
+    public HashedFlow(final Flow.Publisher<ByteBuffer> origin, final Sha256State sha) {
+        this.origin = origin;
+        this.sha = sha;
+        this.result = new CompletableFuture<>();
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> sub) {
+        this.origin.subscribe(new HashedFlow.HashingSubscriber(sub, this.sha, this.result));
+    }
+
+    /**
+     * Hash state, completes when the flow is finished.
+     * @return Future with hash state
+     */
+    public CompletableFuture<Sha256State> state() {
+        return this.result;
+    }
+
+    /**
+     * Subscriber which updates hash state with received bytes.
+     * @since 0.2
+     */
+    private static final class HashingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * Target subscriber.
+         */
+        private final Flow.Subscriber<? super ByteBuffer> target;
+
+        /**
+         * Hash state.
+         */
+        private final Sha256State sha;
+
+        /**
+         * Hash state result.
+         */
+        private final CompletableFuture<Sha256State> result;
+
+        /**
+         * Ctor.
+         * @param target Target subscriber
+         * @param sha Hash state
+         * @param result Hash state result
+         */
+        HashingSubscriber(final Flow.Subscriber<? super ByteBuffer> target,
+            final Sha256State sha, final CompletableFuture<Sha256State> result) {
+            this.target = target;
+            this.sha = sha;
+            this.result = result;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.target.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer chunk) {
+            this.sha.update(chunk);
+            this.target.onNext(chunk);
+        }
+
+        @Override
+        public void onError(final Throwable err) {
+            this.result.completeExceptionally(err);
+            this.target.onError(err);
+        }
+
+        @Override
+        public void onComplete() {
+            this.result.complete(this.sha);
+            this.target.onComplete();
+        }
+    }
+}
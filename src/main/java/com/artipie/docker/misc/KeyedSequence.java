@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Sequence of asynchronous actions per key.
+ * <p>
+ * Actions with the same key run one after another in submission order,
+ * even if previous action failed. Actions with different keys run
+ * independently.
+ * </p>
+ * @param <K> Key type
+ * @since 0.2
+ */
+public final class KeyedSequence<K> {
+
+    /**
+     * Last submitted action by key.
+     */
+    private final Map<K, CompletableFuture<?>> tails;
+
+    /**
+     * Ctor.
+     */
+    public KeyedSequence() {
+        this.tails = new HashMap<>(0);
+    }
+
+    /**
+     * Run action after all previously submitted actions with the same key.
+     * @param key Key
+     * @param action Action
+     * @param <T> Result type
+     * @return Future with action result
+     */
+    public <T> CompletableFuture<T> run(final K key,
+        final Supplier<? extends CompletionStage<T>> action) {
+        final CompletableFuture<T> res;
+        synchronized (this.tails) {
+            res = this.tails.getOrDefault(key, CompletableFuture.completedFuture(null))
+                .handle((ignored, err) -> ignored)
+                .thenCompose(ignored -> action.get());
+            this.tails.put(key, res);
+        }
+        res.whenComplete(
+            (ignored, err) -> {
+                synchronized (this.tails) {
+                    this.tails.remove(key, res);
+                }
+            }
+        );
+        return res;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Bytes flow which checks that data size is equal to the declared length.
+ * <p>
+ * Subscription is cancelled and subscriber gets an error as soon as
+ * more bytes than declared are received, so oversized uploads don't
+ * consume resources till the end. Flow which completes with fewer bytes
+ * than declared fails on completion.
+ * </p>
+ * @since 0.2
+ */
+public final class LengthCheckedFlow implements Flow.Publisher<ByteBuffer> {
+
+    /**
+     * Origin flow.
+     */
+    private final Flow.Publisher<ByteBuffer> origin;
+
+    /**
+     * Declared length.
+     */
+    private final long length;
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param length Declared length in bytes
+     */
+    public LengthCheckedFlow(final Flow.Publisher<ByteBuffer> origin, final long length) {
+        this.origin = origin;
+        this.length = length;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> sub) {
+        this.origin.subscribe(new LengthCheckedFlow.CheckingSubscriber(sub, this.length));
+    }
+
+    /**
+     * Subscriber which checks received bytes count.
+     * @since 0.2
+     */
+    private static final class CheckingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * Target subscriber.
+         */
+        private final Flow.Subscriber<? super ByteBuffer> target;
+
+        /**
+         * Declared length.
+         */
+        private final long length;
+
+        /**
+         * Upstream subscription.
+         */
+        private Flow.Subscription upstream;
+
+        /**
+         * Received bytes.
+         */
+        private long total;
+
+        /**
+         * Flow was terminated by this subscriber.
+         */
+        private boolean done;
+
+        /**
+         * Ctor.
+         * @param target Target subscriber
+         * @param length Declared length
+         */
+        CheckingSubscriber(final Flow.Subscriber<? super ByteBuffer> target,
+            final long length) {
+            this.target = target;
+            this.length = length;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.upstream = subscription;
+            this.target.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(final ByteBuffer chunk) {
+            if (!this.done) {
+                this.total += chunk.remaining();
+                if (this.total > this.length) {
+                    this.done = true;
+                    this.upstream.cancel();
+                    this.target.onError(
+                        new IllegalStateException(
+                            String.format(
+                                "Data size exceeds declared length of %d bytes", this.length
+                            )
+                        )
+                    );
+                } else {
+                    this.target.onNext(chunk);
+                }
+            }
+        }
+
+        @Override
+        public void onError(final Throwable err) {
+            if (!this.done) {
+                this.done = true;
+                this.target.onError(err);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!this.done) {
+                this.done = true;
+                if (this.total == this.length) {
+                    this.target.onComplete();
+                } else {
+                    this.target.onError(
+                        new IllegalStateException(
+                            String.format(
+                                "Data size %d is less than declared length of %d bytes",
+                                this.total, this.length
+                            )
+                        )
+                    );
+                }
+            }
+        }
+    }
+}
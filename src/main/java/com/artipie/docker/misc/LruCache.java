@@ -0,0 +1,199 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of async values with least-recently-used eviction.
+ * <p>
+ * Only successfully loaded values are cached, failed loads are not.
+ * Cached values may expire after specified time to live. Value which
+ * was loading while some key was invalidated is not cached, since it
+ * could be loaded before the invalidated change.
+ * </p>
+ * @param <K> Key type
+ * @param <V> Value type
+ * @since 0.2
+ */
+public final class LruCache<K, V> {
+
+    /**
+     * Cached entries.
+     */
+    private final Map<K, LruCache.Entry<V>> entries;
+
+    /**
+     * Time to live in nanoseconds.
+     */
+    private final long ttl;
+
+    /**
+     * Number of invalidations.
+     */
+    private final AtomicLong epoch;
+
+    /**
+     * Cache without expiration.
+     * @param size Max number of entries
+     */
+    public LruCache(final int size) {
+        this(size, Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    /**
+     * Ctor.
+     * @param size Max number of entries
+     * @param ttl Time to live of entries
+     */
+    public LruCache(final int size, final Duration ttl) {
+        this.entries = Collections.synchronizedMap(new LruCache.Lru<>(size));
+        this.ttl = ttl.toNanos();
+        this.epoch = new AtomicLong();
+    }
+
+    /**
+     * Get cached value or load it.
+     * @param key Key
+     * @param origin Origin loader of value
+     * @return Future with value
+     */
+    public CompletableFuture<V> get(final K key,
+        final Function<K, CompletableFuture<V>> origin) {
+        final long now = System.nanoTime();
+        final long start = this.epoch.get();
+        return Optional.ofNullable(this.entries.get(key))
+            .filter(entry -> entry.alive(now))
+            .map(entry -> CompletableFuture.completedFuture(entry.value))
+            .orElseGet(
+                () -> origin.apply(key).thenApply(
+                    val -> {
+                        synchronized (this.entries) {
+                            if (this.epoch.get() == start) {
+                                this.entries.put(key, new LruCache.Entry<>(val, now, this.ttl));
+                            }
+                        }
+                        return val;
+                    }
+                )
+            );
+    }
+
+    /**
+     * Remove cached value.
+     * @param key Key
+     */
+    public void invalidate(final K key) {
+        synchronized (this.entries) {
+            this.epoch.incrementAndGet();
+            this.entries.remove(key);
+        }
+    }
+
+    /**
+     * Cache entry.
+     * @param <V> Value type
+     * @since 0.2
+     */
+    private static final class Entry<V> {
+
+        /**
+         * Value.
+         */
+        private final V value;
+
+        /**
+         * Time of load in nanoseconds.
+         */
+        private final long loaded;
+
+        /**
+         * Time to live in nanoseconds.
+         */
+        private final long ttl;
+
+        /**
+         * Ctor.
+         * @param value Value
+         * @param loaded Time of load in nanoseconds
+         * @param ttl Time to live in nanoseconds
+         */
+        Entry(final V value, final long loaded, final long ttl) {
+            this.value = value;
+            this.loaded = loaded;
+            this.ttl = ttl;
+        }
+
+        /**
+         * Check if entry is not expired.
+         * @param now Current time in nanoseconds
+         * @return True if alive
+         */
+        boolean alive(final long now) {
+            return now - this.loaded < this.ttl;
+        }
+    }
+
+    /**
+     * Access-ordered map which removes eldest entry on overflow.
+     * @param <K> Key type
+     * @param <V> Value type
+     * @since 0.2
+     */
+    private static final class Lru<K, V> extends LinkedHashMap<K, V> {
+
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Max size.
+         */
+        private final int max;
+
+        /**
+         * Ctor.
+         * @param max Max size
+         */
+        Lru(final int max) {
+            // @checkstyle MagicNumberCheck (1 line)
+            super(16, 0.75f, true);
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return this.size() > this.max;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.docker.Digest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lightweight view of image manifest: only the fields which are needed
+ * to resolve blobs referenced by manifest.
+ * <p>
+ * Supports image manifests ({@code config.digest} and
+ * {@code layers[*].digest}) and manifest lists or OCI indexes
+ * ({@code manifests[*].digest}).
+ * </p>
+ * @since 0.2
+ */
+public final class ManifestView {
+
+    /**
+     * Media type.
+     */
+    private final String media;
+
+    /**
+     * Config digest.
+     */
+    private final Optional<Digest> cfg;
+
+    /**
+     * Layers digests.
+     */
+    private final List<Digest> lrs;
+
+    /**
+     * Manifests digests of manifest list.
+     */
+    private final List<Digest> mnfs;
+
+    /**
+     * Ctor.
+     * @param media Media type, empty string if not specified
+     * @param cfg Config digest
+     * @param lrs Layers digests
+     * @param mnfs Manifests digests of manifest list
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public ManifestView(final String media, final Optional<Digest> cfg,
+        final List<Digest> lrs, final List<Digest> mnfs) {
+        this.media = media;
+        this.cfg = cfg;
+        this.lrs = Collections.unmodifiableList(lrs);
+        this.mnfs = Collections.unmodifiableList(mnfs);
+    }
+
+    /**
+     * Manifest media type.
+     * @return Media type, empty string if not specified
+     */
+    public String mediaType() {
+        return this.media;
+    }
+
+    /**
+     * Image config digest.
+     * @return Config digest if present
+     */
+    public Optional<Digest> config() {
+        return this.cfg;
+    }
+
+    /**
+     * Image layers digests.
+     * @return Layers digests in manifest order
+     */
+    public List<Digest> layers() {
+        return this.lrs;
+    }
+
+    /**
+     * Manifests digests of manifest list or OCI index.
+     * @return Manifests digests
+     */
+    public List<Digest> manifests() {
+        return this.mnfs;
+    }
+
+    /**
+     * All blobs referenced by image manifest: config and layers.
+     * @return Blobs digests
+     */
+    public List<Digest> blobs() {
+        final List<Digest> res = new ArrayList<>(this.lrs.size() + 1);
+        this.cfg.ifPresent(res::add);
+        res.addAll(this.lrs);
+        return res;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Bytes flow with buffered head, to check if the flow fits a size
+ * before consuming it.
+ * <p>
+ * {@link #fits()} subscribes to origin flow and buffers its chunks until
+ * the flow is finished or buffered size exceeds the threshold. Then this
+ * flow can be subscribed once: buffered chunks are emitted first, and
+ * then the rest of origin flow, if it didn't fit.
+ * </p>
+ * @since 0.2
+ */
+public final class PeekedFlow implements Flow.Publisher<ByteBuffer> {
+
+    /**
+     * Origin flow.
+     */
+    private final Flow.Publisher<ByteBuffer> origin;
+
+    /**
+     * Head subscriber.
+     */
+    private final PeekedFlow.Head head;
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param threshold Max size of buffered head in bytes
+     */
+    public PeekedFlow(final Flow.Publisher<ByteBuffer> origin, final long threshold) {
+        this.origin = origin;
+        this.head = new PeekedFlow.Head(threshold);
+    }
+
+    /**
+     * Check if the whole flow fits the threshold.
+     * @return Future with true if the flow is finished within threshold
+     */
+    public CompletableFuture<Boolean> fits() {
+        if (this.head.start()) {
+            this.origin.subscribe(this.head);
+        }
+        return this.head.result();
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> sub) {
+        this.head.attach(sub);
+    }
+
+    /**
+     * Subscriber which buffers flow head and then passes the flow to
+     * downstream subscriber.
+     * @since 0.2
+     */
+    @SuppressWarnings("PMD.TooManyMethods")
+    private static final class Head implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+        /**
+         * Max size of buffered head.
+         */
+        private final long threshold;
+
+        /**
+         * Buffered chunks.
+         */
+        private final Queue<ByteBuffer> chunks;
+
+        /**
+         * Result of size check.
+         */
+        private final CompletableFuture<Boolean> fits;
+
+        /**
+         * Subscribed to origin.
+         */
+        private boolean started;
+
+        /**
+         * Upstream subscription.
+         */
+        private Flow.Subscription upstream;
+
+        /**
+         * Downstream subscriber.
+         */
+        private Flow.Subscriber<? super ByteBuffer> downstream;
+
+        /**
+         * Buffered size.
+         */
+        private long total;
+
+        /**
+         * Downstream demand not satisfied by buffered chunks.
+         */
+        private long demand;
+
+        /**
+         * Origin completed.
+         */
+        private boolean completed;
+
+        /**
+         * Origin error.
+         */
+        private Throwable error;
+
+        /**
+         * Downstream was terminated or cancelled.
+         */
+        private boolean done;
+
+        /**
+         * Ctor.
+         * @param threshold Max size of buffered head
+         */
+        Head(final long threshold) {
+            this.threshold = threshold;
+            this.chunks = new ArrayDeque<>();
+            this.fits = new CompletableFuture<>();
+        }
+
+        /**
+         * Mark as started.
+         * @return True if it was not started before
+         */
+        synchronized boolean start() {
+            final boolean first = !this.started;
+            this.started = true;
+            return first;
+        }
+
+        /**
+         * Result of size check.
+         * @return Future with true if the flow is finished within threshold
+         */
+        CompletableFuture<Boolean> result() {
+            return this.fits;
+        }
+
+        /**
+         * Attach downstream subscriber.
+         * @param sub Subscriber
+         */
+        synchronized void attach(final Flow.Subscriber<? super ByteBuffer> sub) {
+            if (!this.fits.isDone() || this.downstream != null) {
+                throw new IllegalStateException(
+                    "Flow can be subscribed once, after its size is checked"
+                );
+            }
+            this.downstream = sub;
+            sub.onSubscribe(this);
+            this.drain();
+        }
+
+        @Override
+        public synchronized void onSubscribe(final Flow.Subscription subscription) {
+            this.upstream = subscription;
+            subscription.request(1L);
+        }
+
+        @Override
+        public synchronized void onNext(final ByteBuffer chunk) {
+            if (this.fits.isDone()) {
+                if (!this.done) {
+                    this.downstream.onNext(chunk);
+                }
+            } else {
+                this.chunks.add(chunk);
+                this.total += chunk.remaining();
+                if (this.total > this.threshold) {
+                    this.fits.complete(false);
+                } else {
+                    this.upstream.request(1L);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void onError(final Throwable err) {
+            if (this.fits.isDone()) {
+                this.error = err;
+                this.drain();
+            } else {
+                this.chunks.clear();
+                this.fits.completeExceptionally(err);
+            }
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            this.completed = true;
+            if (this.fits.isDone()) {
+                this.drain();
+            } else {
+                this.fits.complete(true);
+            }
+        }
+
+        @Override
+        public synchronized void request(final long count) {
+            if (count <= 0) {
+                this.done = true;
+                this.upstream.cancel();
+                this.downstream.onError(
+                    new IllegalArgumentException(
+                        String.format("Requested %d items, but should be positive", count)
+                    )
+                );
+            } else {
+                this.demand += Math.min(count, Long.MAX_VALUE - this.demand);
+                this.drain();
+            }
+        }
+
+        @Override
+        public synchronized void cancel() {
+            this.done = true;
+            this.chunks.clear();
+            this.upstream.cancel();
+        }
+
+        /**
+         * Emit buffered chunks and terminal signal, forward demand
+         * to upstream when buffer is empty.
+         */
+        private void drain() {
+            if (this.downstream != null && !this.done) {
+                while (this.demand > 0 && !this.chunks.isEmpty()) {
+                    this.demand -= 1;
+                    this.downstream.onNext(this.chunks.poll());
+                }
+                if (this.chunks.isEmpty()) {
+                    if (this.error != null) {
+                        this.done = true;
+                        this.downstream.onError(this.error);
+                    } else if (this.completed) {
+                        this.done = true;
+                        this.downstream.onComplete();
+                    } else if (this.demand > 0) {
+                        final long req = this.demand;
+                        this.demand = 0;
+                        this.upstream.request(req);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Bytes flow with a range of origin flow data.
+ * <p>
+ * Origin data before the range is skipped, origin subscription is
+ * cancelled as soon as the range is emitted.
+ * </p>
+ * @since 0.2
+ */
+public final class RangeFlow implements Flow.Publisher<ByteBuffer> {
+
+    /**
+     * Origin flow.
+     */
+    private final Flow.Publisher<ByteBuffer> origin;
+
+    /**
+     * Range offset.
+     */
+    private final long offset;
+
+    /**
+     * Range length.
+     */
+    private final long length;
+
+    /**
+     * Ctor.
+     * @param origin Origin flow
+     * @param offset Range offset in bytes
+     * @param length Range length in bytes
+     */
+    public RangeFlow(final Flow.Publisher<ByteBuffer> origin, final long offset,
+        final long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalStateException(
+                String.format("Invalid range: offset=%d, length=%d", offset, length)
+            );
+        }
+        this.origin = origin;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super ByteBuffer> sub) {
+        this.origin.subscribe(new RangeFlow.RangeSubscriber(sub, this.offset, this.length));
+    }
+
+    /**
+     * Subscriber which emits only range bytes.
+     * @since 0.2
+     */
+    private static final class RangeSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+        /**
+         * Target subscriber.
+         */
+        private final Flow.Subscriber<? super ByteBuffer> target;
+
+        /**
+         * Bytes left to skip.
+         */
+        private long skip;
+
+        /**
+         * Bytes left to emit.
+         */
+        private long left;
+
+        /**
+         * Upstream subscription.
+         */
+        private Flow.Subscription upstream;
+
+        /**
+         * Range was emitted.
+         */
+        private boolean done;
+
+        /**
+         * Ctor.
+         * @param target Target subscriber
+         * @param skip Bytes to skip
+         * @param left Bytes to emit
+         */
+        RangeSubscriber(final Flow.Subscriber<? super ByteBuffer> target,
+            final long skip, final long left) {
+            this.target = target;
+            this.skip = skip;
+            this.left = left;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.upstream = subscription;
+            this.target.onSubscribe(subscription);
+            if (this.left == 0) {
+                this.finish();
+            }
+        }
+
+        @Override
+        public void onNext(final ByteBuffer chunk) {
+            if (!this.done) {
+                final ByteBuffer buf = chunk.duplicate();
+                if (this.skip >= buf.remaining()) {
+                    this.skip -= buf.remaining();
+                    this.upstream.request(1L);
+                } else {
+                    buf.position(buf.position() + (int) this.skip);
+                    this.skip = 0;
+                    if (buf.remaining() >= this.left) {
+                        buf.limit(buf.position() + (int) this.left);
+                        this.left = 0;
+                        this.target.onNext(buf);
+                        this.finish();
+                    } else {
+                        this.left -= buf.remaining();
+                        this.target.onNext(buf);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onError(final Throwable err) {
+            if (!this.done) {
+                this.done = true;
+                this.target.onError(err);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!this.done) {
+                this.done = true;
+                this.target.onComplete();
+            }
+        }
+
+        /**
+         * Cancel upstream and complete target, when range is emitted.
+         */
+        private void finish() {
+            this.done = true;
+            this.upstream.cancel();
+            this.target.onComplete();
+        }
+    }
+}
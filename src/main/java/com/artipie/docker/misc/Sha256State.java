@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.docker.Digest;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * SHA-256 hash with serializable intermediate state.
+ * <p>
+ * JDK message digests can't be persisted, so chunked uploads
+ * would have to re-read all received data to compute blob digest.
+ * This hash state can be saved with {@link #bytes()} after each chunk
+ * and restored with {@link #Sha256State(byte[])} to continue hashing
+ * from the same point. State format is big-endian: 8 hash words,
+ * total length in bytes and not yet processed tail of the last block.
+ * </p>
+ * @since 0.2
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+public final class Sha256State {
+
+    /**
+     * Block size in bytes.
+     */
+    private static final int BLOCK = 64;
+
+    /**
+     * Size of serialized state header: hash words and length.
+     */
+    private static final int HEADER = 40;
+
+    /**
+     * Initial hash words.
+     */
+    private static final int[] INIT = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+        0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19,
+    };
+
+    /**
+     * Round constants.
+     */
+    private static final int[] ROUNDS = {
+        0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4,
+        0xab1c5ed5, 0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe,
+        0x9bdc06a7, 0xc19bf174, 0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f,
+        0x4a7484aa, 0x5cb0a9dc, 0x76f988da, 0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7,
+        0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967, 0x27b70a85, 0x2e1b2138, 0x4d2c6dfc,
+        0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85, 0xa2bfe8a1, 0xa81a664b,
+        0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070, 0x19a4c116,
+        0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+        0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7,
+        0xc67178f2,
+    };
+
+    /**
+     * Hash words.
+     */
+    private final int[] words;
+
+    /**
+     * Current block.
+     */
+    private final byte[] block;
+
+    /**
+     * Message schedule buffer.
+     */
+    private final int[] schedule;
+
+    /**
+     * Total length in bytes.
+     */
+    private long length;
+
+    /**
+     * New hash state.
+     */
+    public Sha256State() {
+        this(Sha256State.INIT.clone(), new byte[Sha256State.BLOCK], 0L);
+    }
+
+    /**
+     * Restore hash state from bytes.
+     * @param state Serialized state, see {@link #bytes()}
+     */
+    public Sha256State(final byte[] state) {
+        this(new int[Sha256State.INIT.length], new byte[Sha256State.BLOCK], 0L);
+        final ByteBuffer buf = ByteBuffer.wrap(state);
+        if (buf.remaining() < Sha256State.HEADER) {
+            throw new IllegalStateException(
+                String.format("Invalid SHA-256 state size: %d", state.length)
+            );
+        }
+        for (int idx = 0; idx < this.words.length; ++idx) {
+            this.words[idx] = buf.getInt();
+        }
+        this.length = buf.getLong();
+        if (this.length < 0 || buf.remaining() != this.length % Sha256State.BLOCK) {
+            throw new IllegalStateException(
+                String.format("Invalid SHA-256 state size: %d", state.length)
+            );
+        }
+        buf.get(this.block, 0, buf.remaining());
+    }
+
+    /**
+     * Primary ctor.
+     * @param words Hash words
+     * @param block Current block
+     * @param length Total length
+     */
+    private Sha256State(final int[] words, final byte[] block, final long length) {
+        this.words = words;
+        this.block = block;
+        this.length = length;
+        this.schedule = new int[Sha256State.BLOCK];
+    }
+
+    /**
+     * Update hash with remaining bytes of the buffer.
+     * Buffer position is not changed.
+     * @param data Data buffer
+     */
+    public synchronized void update(final ByteBuffer data) {
+        final ByteBuffer src = data.duplicate();
+        while (src.hasRemaining()) {
+            final int used = (int) (this.length % Sha256State.BLOCK);
+            final int size = Math.min(Sha256State.BLOCK - used, src.remaining());
+            src.get(this.block, used, size);
+            this.length += size;
+            if (used + size == Sha256State.BLOCK) {
+                this.compress(this.block, this.words);
+            }
+        }
+    }
+
+    /**
+     * Total length of hashed data.
+     * @return Length in bytes
+     */
+    public synchronized long length() {
+        return this.length;
+    }
+
+    /**
+     * Serialized hash state.
+     * @return State bytes
+     */
+    public synchronized byte[] bytes() {
+        final int tail = (int) (this.length % Sha256State.BLOCK);
+        final ByteBuffer buf = ByteBuffer.allocate(Sha256State.HEADER + tail);
+        for (final int word : this.words) {
+            buf.putInt(word);
+        }
+        buf.putLong(this.length);
+        buf.put(this.block, 0, tail);
+        return buf.array();
+    }
+
+    /**
+     * Digest of the data hashed so far. The state is not changed,
+     * so hashing can be continued after this call.
+     * @return Digest
+     */
+    public synchronized Digest digest() {
+        final int[] result = Arrays.copyOf(this.words, this.words.length);
+        final int used = (int) (this.length % Sha256State.BLOCK);
+        final byte[] last = Arrays.copyOf(this.block, Sha256State.BLOCK);
+        Arrays.fill(last, used, Sha256State.BLOCK, (byte) 0);
+        last[used] = (byte) 0x80;
+        if (used >= Sha256State.BLOCK - Long.BYTES) {
+            this.compress(last, result);
+            Arrays.fill(last, (byte) 0);
+        }
+        ByteBuffer.wrap(last).putLong(Sha256State.BLOCK - Long.BYTES, this.length * Byte.SIZE);
+        this.compress(last, result);
+        final StringBuilder hex = new StringBuilder(Sha256State.BLOCK);
+        for (final int word : result) {
+            hex.append(String.format("%08x", word));
+        }
+        return new Digest.Sha256(hex.toString());
+    }
+
+    /**
+     * Process one block.
+     * @param data Block data
+     * @param hash Hash words to update
+     */
+    private void compress(final byte[] data, final int[] hash) {
+        final int[] wsc = this.schedule;
+        final ByteBuffer buf = ByteBuffer.wrap(data);
+        for (int idx = 0; idx < 16; ++idx) {
+            wsc[idx] = buf.getInt();
+        }
+        for (int idx = 16; idx < Sha256State.BLOCK; ++idx) {
+            final int prev = wsc[idx - 15];
+            final int back = wsc[idx - 2];
+            wsc[idx] = wsc[idx - 16] + wsc[idx - 7]
+                + (Integer.rotateRight(prev, 7) ^ Integer.rotateRight(prev, 18) ^ prev >>> 3)
+                + (Integer.rotateRight(back, 17) ^ Integer.rotateRight(back, 19) ^ back >>> 10);
+        }
+        final int[] reg = Arrays.copyOf(hash, hash.length);
+        for (int idx = 0; idx < Sha256State.BLOCK; ++idx) {
+            final int first = reg[7]
+                + (Integer.rotateRight(reg[4], 6) ^ Integer.rotateRight(reg[4], 11)
+                ^ Integer.rotateRight(reg[4], 25))
+                + (reg[4] & reg[5] ^ ~reg[4] & reg[6])
+                + Sha256State.ROUNDS[idx] + wsc[idx];
+            final int second = (Integer.rotateRight(reg[0], 2)
+                ^ Integer.rotateRight(reg[0], 13) ^ Integer.rotateRight(reg[0], 22))
+                + (reg[0] & reg[1] ^ reg[0] & reg[2] ^ reg[1] & reg[2]);
+            System.arraycopy(reg, 0, reg, 1, reg.length - 1);
+            reg[4] += first;
+            reg[0] = first + second;
+        }
+        for (int idx = 0; idx < hash.length; ++idx) {
+            hash[idx] += reg[idx];
+        }
+    }
+}
@@ -29,16 +29,27 @@ import com.artipie.docker.Digest;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Manifest link reference.
  * <p>
  * Can be resolved by image tag or digest.
  * </p>
+ * <p>
+ * Tag name is validated on access: it should match
+ * <code>[A-Za-z0-9_][A-Za-z0-9_.-]{0,127}</code>, so it can't escape
+ * the tags directory or break tags index lines.
+ * </p>
  * @since 0.1
  */
 public final class ManifestRef implements Key {
 
+    /**
+     * Max tag name length.
+     */
+    private static final int MAX_TAG = 128;
+
     /**
      * Path parts.
      */
@@ -72,9 +83,65 @@ public final class ManifestRef implements Key {
         this.parts = Collections.unmodifiableList(parts);
     }
 
+    /**
+     * Digest of the reference.
+     * @return Digest if reference is a revision, empty if it's a tag
+     */
+    public Optional<Digest> digest() {
+        Optional<Digest> res = Optional.empty();
+        if ("revisions".equals(this.parts.get(0))) {
+            res = Optional.of(
+                new Digest.FromLink(String.join(":", this.parts.get(1), this.parts.get(2)))
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Tag name of the reference.
+     * @return Tag if reference is a tag, empty if it's a digest
+     */
+    public Optional<String> tag() {
+        Optional<String> res = Optional.empty();
+        if ("tags".equals(this.parts.get(0))) {
+            res = Optional.of(this.validated().get(1));
+        }
+        return res;
+    }
+
     @Override
     public String string() {
-        return String.join("/", this.parts);
+        return String.join("/", this.validated());
+    }
+
+    /**
+     * Path parts with validated tag name.
+     * @return Path parts
+     * @throws IllegalStateException If reference is a tag with invalid name
+     */
+    private List<String> validated() {
+        if ("tags".equals(this.parts.get(0)) && !ManifestRef.valid(this.parts.get(1))) {
+            throw new IllegalStateException(
+                String.format("Invalid tag name: '%s'", this.parts.get(1))
+            );
+        }
+        return this.parts;
+    }
+
+    /**
+     * Check tag name.
+     * @param tag Tag name
+     * @return True if tag name is valid
+     */
+    private static boolean valid(final String tag) {
+        boolean ok = !tag.isEmpty() && tag.length() <= ManifestRef.MAX_TAG
+            && tag.charAt(0) != '.' && tag.charAt(0) != '-';
+        for (int pos = 0; ok && pos < tag.length(); ++pos) {
+            final char chr = tag.charAt(pos);
+            ok = chr >= 'a' && chr <= 'z' || chr >= 'A' && chr <= 'Z'
+                || chr >= '0' && chr <= '9' || chr == '_' || chr == '.' || chr == '-';
+        }
+        return ok;
     }
 }
 
@@ -51,4 +51,28 @@ public final class DigestTest {
             IllegalStateException.class, () -> dgst.digest(), "digest() didn't fail"
         );
     }
+
+    @Test
+    void failsOnInvalidChars() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new Digest.FromLink("sha256:12/34").digest()
+        );
+    }
+
+    @Test
+    void equalsToSameDigest() {
+        final Digest link = new Digest.FromLink("sha256:abcd");
+        final Digest sha = new Digest.Sha256("abcd");
+        MatcherAssert.assertThat("not equal", link, Matchers.equalTo(sha));
+        MatcherAssert.assertThat("hash differs", link.hashCode(), Matchers.is(sha.hashCode()));
+    }
+
+    @Test
+    void notEqualsToOtherDigest() {
+        MatcherAssert.assertThat(
+            new Digest.FromLink("sha256:abcd"),
+            Matchers.not(Matchers.equalTo(new Digest.Sha256("abce")))
+        );
+    }
 }
@@ -72,6 +72,39 @@ final class RepoNameTest {
         );
     }
 
+    @Test
+    void cannotHaveEmptyParts() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new RepoName.Valid("asd//zxc").value()
+        );
+    }
+
+    @Test
+    void cannotHaveDoubleSeparators() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new RepoName.Valid("asd--zxc").value()
+        );
+    }
+
+    @Test
+    void poolReturnsSameInstance() {
+        final RepoName.Pool pool = new RepoName.Pool();
+        MatcherAssert.assertThat(
+            pool.name("my/repo"),
+            Matchers.sameInstance(pool.name("my/repo"))
+        );
+    }
+
+    @Test
+    void poolFailsOnInvalidName() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new RepoName.Pool().name("My/Repo")
+        );
+    }
+
     /**
      * Generates new string with repeated char.
      * @param chr Char to repeat
@@ -23,15 +23,19 @@
  */
 package com.artipie.docker.asto;
 
+import com.artipie.asto.Remaining;
 import com.artipie.asto.fs.FileStorage;
 import com.artipie.docker.BlobStore;
 import com.artipie.docker.Digest;
+import com.artipie.docker.misc.BytesFlowAs;
 import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
 import org.junit.jupiter.api.io.TempDir;
@@ -72,6 +76,18 @@ final class AstoBlobsITCase {
         );
     }
 
+    @Test
+    void leavesNothingButBlobInStorage(@TempDir final Path tmp) throws Exception {
+        new AstoBlobs(new FileStorage(tmp)).put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(new byte[]{0x01})))
+        ).get();
+        MatcherAssert.assertThat(
+            "Small blob was spooled to storage",
+            Files.exists(tmp.resolve("docker/registry/v2/uploads")),
+            Matchers.is(false)
+        );
+    }
+
     @Test
     void writeAndReadBlob(@TempDir final Path tmp) throws Exception {
         final BlobStore blobs = new AstoBlobs(new FileStorage(tmp));
@@ -84,4 +100,178 @@ final class AstoBlobsITCase {
         ).toList().blockingGet().get(0).array();
         MatcherAssert.assertThat(read, Matchers.equalTo(buf.array()));
     }
+
+    @Test
+    void movesUploadedDataOnFileSystem(@TempDir final Path tmp) throws Exception {
+        final BlobStore blobs = new AstoBlobs(
+            new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp)
+        );
+        final ByteBuffer buf = ByteBuffer.wrap(new byte[]{0x00, 0x01, 0x02, 0x03});
+        final Digest digest = blobs.put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(buf))
+        ).get();
+        MatcherAssert.assertThat(
+            "Blob content is not correct",
+            Files.readAllBytes(
+                tmp.resolve("docker/registry/v2/blobs/sha256")
+                    .resolve(digest.digest().substring(0, 2))
+                    .resolve(digest.digest())
+                    .resolve("data")
+            ),
+            Matchers.equalTo(buf.array())
+        );
+        MatcherAssert.assertThat(
+            "Upload was not moved",
+            Files.list(tmp.resolve("docker/registry/v2/uploads")).count(),
+            Matchers.equalTo(0L)
+        );
+    }
+
+    @Test
+    void skipsExistingBlob(@TempDir final Path tmp) throws Exception {
+        final BlobStore blobs = new AstoBlobs(
+            new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp)
+        );
+        final byte[] data = {0x00, 0x01, 0x02, 0x03};
+        final Digest first = blobs.put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(data)))
+        ).get();
+        MatcherAssert.assertThat(
+            "Blob doesn't exist",
+            blobs.exists(first).get(),
+            Matchers.is(true)
+        );
+        final Digest second = blobs.put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(data)))
+        ).get();
+        MatcherAssert.assertThat("Digest is not the same", second, Matchers.equalTo(first));
+        MatcherAssert.assertThat(
+            "Upload was not deleted",
+            Files.exists(tmp.resolve("docker/registry/v2/uploads")),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void checksMissingBlob(@TempDir final Path tmp) throws Exception {
+        MatcherAssert.assertThat(
+            new AstoBlobs(new FileStorage(tmp)).exists(new Digest.Sha256("0000")).get(),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void doesNotStoreMismatchedBlob(@TempDir final Path tmp) throws Exception {
+        final BlobStore blobs = new AstoBlobs(
+            new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp)
+        );
+        final Digest expected = new Digest.Sha256(
+            "054edec1d0211f624fed0cbca9d4f9400b0e491c43742af2c5b0abebf0c990d8"
+        );
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> blobs.put(
+                expected,
+                FlowAdapters.toFlowPublisher(
+                    Flowable.fromArray(ByteBuffer.wrap(new byte[]{0x00, 0x01}))
+                )
+            ).get()
+        );
+        MatcherAssert.assertThat(
+            "Blob was stored",
+            Files.exists(tmp.resolve("docker/registry/v2/blobs")),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            "Upload was not deleted",
+            Files.exists(tmp.resolve("docker/registry/v2/uploads")),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void readsRangeOnFileSystem(@TempDir final Path tmp) throws Exception {
+        AstoBlobsITCase.readsRange(
+            new AstoBlobs(
+                new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp),
+                new ReadRange.FileSystem(tmp)
+            )
+        );
+    }
+
+    @Test
+    void readsRangeBySkipping(@TempDir final Path tmp) throws Exception {
+        AstoBlobsITCase.readsRange(new AstoBlobs(new FileStorage(tmp)));
+    }
+
+    /**
+     * Put blob and read its range.
+     * @param blobs Blob store
+     * @throws Exception If fails
+     */
+    private static void readsRange(final BlobStore blobs) throws Exception {
+        final Digest digest = blobs.put(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(ByteBuffer.wrap(new byte[]{0x00, 0x01, 0x02, 0x03}))
+            )
+        ).get();
+        MatcherAssert.assertThat(
+            new Remaining(new BytesFlowAs.Bytes(blobs.blob(digest, 1, 2).get()).future().get())
+                .bytes(),
+            Matchers.equalTo(new byte[]{0x01, 0x02})
+        );
+    }
+
+    @Test
+    void savesBlobSize(@TempDir final Path tmp) throws Exception {
+        final BlobStore blobs = new AstoBlobs(new FileStorage(tmp));
+        final Digest digest = blobs.put(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(ByteBuffer.wrap(new byte[]{0x00, 0x01, 0x02}))
+            )
+        ).get();
+        MatcherAssert.assertThat(
+            "Size file is not correct",
+            Files.readString(AstoBlobsITCase.blobDir(tmp, digest).resolve("size")),
+            Matchers.equalTo("3")
+        );
+        MatcherAssert.assertThat(
+            "Size is not correct",
+            blobs.size(digest).get(),
+            Matchers.equalTo(3L)
+        );
+    }
+
+    @Test
+    void countsSizeOfBlobWithoutSizeFile(@TempDir final Path tmp) throws Exception {
+        final Digest digest = new Digest.Sha256(
+            "054edec1d0211f624fed0cbca9d4f9400b0e491c43742af2c5b0abebf0c990d8"
+        );
+        final Path dir = AstoBlobsITCase.blobDir(tmp, digest);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("data"), new byte[]{0x00, 0x01, 0x02, 0x03});
+        MatcherAssert.assertThat(
+            "Size is not correct",
+            new AstoBlobs(new FileStorage(tmp)).size(digest).get(),
+            Matchers.equalTo(4L)
+        );
+        MatcherAssert.assertThat(
+            "Size was not saved",
+            Files.readString(dir.resolve("size")),
+            Matchers.equalTo("4")
+        );
+    }
+
+    /**
+     * Blob directory.
+     * @param root Storage root
+     * @param digest Blob digest
+     * @return Path
+     */
+    private static Path blobDir(final Path root, final Digest digest) {
+        return root.resolve("docker/registry/v2/blobs")
+            .resolve(digest.alg())
+            .resolve(digest.digest().substring(0, 2))
+            .resolve(digest.digest());
+    }
 }
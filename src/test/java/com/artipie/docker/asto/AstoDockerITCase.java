@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.fs.FileStorage;
+import com.artipie.docker.Docker;
+import com.artipie.docker.RepoName;
+import com.artipie.docker.ref.ManifestRef;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Integration test for {@link AstoDocker}.
+ * @since 0.2
+ */
+final class AstoDockerITCase {
+
+    @Test
+    void listsCatalogByPages(@TempDir final Path tmp) throws Exception {
+        final Docker docker = new AstoDocker(new FileStorage(tmp));
+        for (final String name : new String[]{"b/one", "a", "c", "a"}) {
+            docker.repo(new RepoName.Simple(name)).putManifest(
+                new ManifestRef("latest"),
+                FlowAdapters.toFlowPublisher(
+                    Flowable.fromArray(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)))
+                )
+            ).get();
+        }
+        MatcherAssert.assertThat(
+            "Wrong first page",
+            docker.catalog("", 2).get(),
+            Matchers.contains("a", "b/one")
+        );
+        MatcherAssert.assertThat(
+            "Wrong last page",
+            docker.catalog("b/one", 2).get(),
+            Matchers.contains("c")
+        );
+    }
+
+    @Test
+    void listsCatalogOfEmptyRegistry(@TempDir final Path tmp) throws Exception {
+        final Docker docker = new AstoDocker(new FileStorage(tmp));
+        MatcherAssert.assertThat(
+            "Empty registry has repositories",
+            docker.catalog("", 10).get(1, TimeUnit.MINUTES),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            "Catalog index was written",
+            Files.exists(tmp.resolve("docker/registry/v2/_index/catalog")),
+            Matchers.is(false)
+        );
+        docker.repo(new RepoName.Simple("first")).putManifest(
+            new ManifestRef("latest"),
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)))
+            )
+        ).get(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(
+            "Pushed repository is not listed",
+            docker.catalog("", 10).get(1, TimeUnit.MINUTES),
+            Matchers.contains("first")
+        );
+    }
+
+    @Test
+    void failsCatalogWhenStorageFailsToList(@TempDir final Path tmp) {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new AstoDocker(new ListFailingStorage(new FileStorage(tmp)))
+                .catalog("", 10).get(1, TimeUnit.MINUTES)
+        );
+        MatcherAssert.assertThat(
+            "Catalog index was written",
+            Files.exists(tmp.resolve("docker/registry/v2/_index/catalog")),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void buildsCatalogFromExistingRepositories(@TempDir final Path tmp) throws Exception {
+        for (final String name : new String[]{"x/y", "w"}) {
+            final Path link = tmp.resolve(
+                String.format(
+                    "docker/registry/v2/repositories/%s/_manifests/tags/1/current/link", name
+                )
+            );
+            Files.createDirectories(link.getParent());
+            Files.write(link, "sha256:0000".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.createDirectories(tmp.resolve("docker/registry/v2/repositories/z/_uploads/1"));
+        Files.write(
+            tmp.resolve("docker/registry/v2/repositories/z/_uploads/1/data"), new byte[]{0x00}
+        );
+        MatcherAssert.assertThat(
+            new AstoDocker(new FileStorage(tmp)).catalog("", 10).get(),
+            Matchers.contains("w", "x/y")
+        );
+    }
+}
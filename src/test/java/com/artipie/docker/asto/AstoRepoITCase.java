@@ -26,15 +26,25 @@ package com.artipie.docker.asto;
 
 import com.artipie.asto.Remaining;
 import com.artipie.asto.fs.FileStorage;
+import com.artipie.docker.Digest;
 import com.artipie.docker.Repo;
 import com.artipie.docker.RepoName;
+import com.artipie.docker.misc.BytesFlowAs;
 import com.artipie.docker.ref.ManifestRef;
 import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.reactivestreams.FlowAdapters;
 
 /**
@@ -42,16 +52,26 @@ import org.reactivestreams.FlowAdapters;
  * @since 0.1
  */
 final class AstoRepoITCase {
-    @Test
-    void readsManifestJson() throws Exception {
+    /**
+     * Repository under test.
+     */
+    private Repo repo;
+
+    @BeforeEach
+    void setUp() throws Exception {
         final Path dir = Path.of(
             Thread.currentThread().getContextClassLoader()
                 .getResource("docker").toURI()
         ).getParent();
-        final Repo repo = new AstoRepo(new FileStorage(dir), new RepoName.Simple("test"));
+        this.repo = new AstoRepo(new FileStorage(dir), new RepoName.Simple("test"));
+    }
+
+    @Test
+    void readsManifestJson() throws Exception {
         final byte[] content = new Remaining(
-            Flowable.fromPublisher(FlowAdapters.toPublisher(repo.manifest(new ManifestRef("1"))))
-                .toList()
+            Flowable.fromPublisher(
+                FlowAdapters.toPublisher(this.repo.manifest(new ManifestRef("1")))
+            ).toList()
                 .blockingGet()
                 .stream()
                 .reduce(
@@ -63,4 +83,263 @@ final class AstoRepoITCase {
         // @checkstyle MagicNumberCheck (1 line)
         MatcherAssert.assertThat(content.length, Matchers.equalTo(942));
     }
+
+    @Test
+    void readsLayerLink() throws Exception {
+        final String hex = "89d9c30c1d48bac627e5c6cb0d1ed1eec28e7dbdfbcc04712e4c79c0f83faf17";
+        MatcherAssert.assertThat(
+            this.repo.layer("sha256", hex).get().digest(),
+            Matchers.equalTo(hex)
+        );
+    }
+
+    @Test
+    void failsOnMissingLayerLink() {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> this.repo.layer("sha256", "0000").get()
+        );
+    }
+
+    @Test
+    void mountsExistingBlob(@TempDir final Path tmp) throws Exception {
+        final FileStorage storage = new FileStorage(tmp);
+        final Digest digest = new AstoBlobs(storage).put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(new byte[]{0x01})))
+        ).get();
+        final Repo other = new AstoRepo(storage, new RepoName.Simple("other"));
+        other.mount(digest).get();
+        MatcherAssert.assertThat(
+            other.layer(digest.alg(), digest.digest()).get(),
+            Matchers.equalTo(digest)
+        );
+    }
+
+    @Test
+    void failsToMountMissingBlob(@TempDir final Path tmp) {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"))
+                .mount(new Digest.Sha256("0000")).get()
+        );
+    }
+
+    @Test
+    void pushesManifestByTag(@TempDir final Path tmp) throws Exception {
+        final Repo other = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"));
+        other.putManifest(new ManifestRef("1"), AstoRepoITCase.json("{\"first\":1}")).get();
+        final Digest digest = other.putManifest(
+            new ManifestRef("1"), AstoRepoITCase.json("{\"second\":2}")
+        ).get();
+        MatcherAssert.assertThat(
+            "Tag doesn't point to last manifest",
+            new BytesFlowAs.Text(other.manifest(new ManifestRef("1"))).future().get(),
+            Matchers.equalTo("{\"second\":2}")
+        );
+        MatcherAssert.assertThat(
+            "Revision is not linked",
+            new BytesFlowAs.Text(other.manifest(new ManifestRef(digest))).future().get(),
+            Matchers.equalTo("{\"second\":2}")
+        );
+        MatcherAssert.assertThat(
+            "Temporary data is left",
+            Files.exists(tmp.resolve("docker/registry/v2/repositories/other/_uploads")),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            "Tag index entry is missing",
+            tmp.resolve(
+                String.format(
+                    "docker/registry/v2/repositories/other/_manifests/tags/1/index/%s/%s/link",
+                    digest.alg(), digest.digest()
+                )
+            ).toFile().exists(),
+            Matchers.is(true)
+        );
+    }
+
+    @Test
+    void replacesTagOnFileSystem(@TempDir final Path tmp) throws Exception {
+        final Repo other = new AstoRepo(
+            new FileStorage(tmp), new RepoName.Simple("other"), new Caches(),
+            new Move.FileSystem(tmp), new Delete.FileSystem(tmp)
+        );
+        other.putManifest(new ManifestRef("1"), AstoRepoITCase.json("{\"first\":1}")).get();
+        other.putManifest(new ManifestRef("1"), AstoRepoITCase.json("{\"second\":2}")).get();
+        MatcherAssert.assertThat(
+            "Tag doesn't point to last manifest",
+            new BytesFlowAs.Text(other.manifest(new ManifestRef("1"))).future().get(),
+            Matchers.equalTo("{\"second\":2}")
+        );
+        MatcherAssert.assertThat(
+            "Temporary file is left",
+            Files.list(
+                tmp.resolve("docker/registry/v2/repositories/other/_manifests/tags/1/current")
+            ).count(),
+            Matchers.is(1L)
+        );
+    }
+
+    @Test
+    void failsToPushManifestWithWrongDigest(@TempDir final Path tmp) {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other")).putManifest(
+                new ManifestRef(new Digest.Sha256("0000")), AstoRepoITCase.json("{}")
+            ).get()
+        );
+    }
+
+    @Test
+    void pushesManifestWithLinkedLayers(@TempDir final Path tmp) throws Exception {
+        final FileStorage storage = new FileStorage(tmp);
+        final Digest layer = new AstoBlobs(storage).put(AstoRepoITCase.json("layer")).get();
+        final Repo other = new AstoRepo(storage, new RepoName.Simple("other"));
+        other.mount(layer).get();
+        MatcherAssert.assertThat(
+            other.putManifest(new ManifestRef("2"), AstoRepoITCase.manifest(layer)).get(),
+            Matchers.notNullValue()
+        );
+    }
+
+    @Test
+    void failsToPushManifestWithUnknownLayer(@TempDir final Path tmp) {
+        final Repo other = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"));
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> other.putManifest(
+                new ManifestRef("3"), AstoRepoITCase.manifest(new Digest.Sha256("0000"))
+            ).get()
+        );
+        MatcherAssert.assertThat(
+            "Tag was written",
+            tmp.resolve("docker/registry/v2/repositories/other/_manifests").toFile().exists(),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void rejectsInvalidTags(@TempDir final Path tmp) {
+        final Repo other = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"));
+        for (final String tag : new String[]{"../../x", "bad\ntag", ".hidden", ""}) {
+            Assertions.assertThrows(
+                ExecutionException.class,
+                () -> other.putManifest(new ManifestRef(tag), AstoRepoITCase.json("{}"))
+                    .get(1, TimeUnit.MINUTES),
+                String.format("Tag '%s' was accepted", tag)
+            );
+        }
+        MatcherAssert.assertThat(
+            "Something was written",
+            tmp.toFile().list(),
+            Matchers.emptyArray()
+        );
+    }
+
+    @Test
+    void listsTagsByPages(@TempDir final Path tmp) throws Exception {
+        final Repo other = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"));
+        for (final String tag : new String[]{"b", "a", "c", "a"}) {
+            other.putManifest(new ManifestRef(tag), AstoRepoITCase.json("{}")).get();
+        }
+        MatcherAssert.assertThat(
+            "Wrong first page",
+            other.tags("", 2).get(),
+            Matchers.contains("a", "b")
+        );
+        MatcherAssert.assertThat(
+            "Wrong last page",
+            other.tags("b", 2).get(),
+            Matchers.contains("c")
+        );
+    }
+
+    @Test
+    void listsTagsOfEmptyRepository(@TempDir final Path tmp) throws Exception {
+        final Repo other = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"));
+        MatcherAssert.assertThat(
+            "Empty repository has tags",
+            other.tags("", 10).get(),
+            Matchers.empty()
+        );
+        MatcherAssert.assertThat(
+            "Empty repository was written",
+            Files.exists(tmp.resolve("docker/registry/v2/repositories/other")),
+            Matchers.is(false)
+        );
+        other.putManifest(new ManifestRef("1"), AstoRepoITCase.json("{}"))
+            .get(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(
+            "Pushed tag is not listed",
+            other.tags("", 10).get(1, TimeUnit.MINUTES),
+            Matchers.contains("1")
+        );
+    }
+
+    @Test
+    void failsTagsWhenStorageFailsToList(@TempDir final Path tmp) {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new AstoRepo(
+                new ListFailingStorage(new FileStorage(tmp)), new RepoName.Simple("other")
+            ).tags("", 10).get(1, TimeUnit.MINUTES)
+        );
+        MatcherAssert.assertThat(
+            "Tag index was written",
+            Files.exists(tmp.resolve("docker/registry/v2/repositories/other/_index/tags")),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void buildsTagIndexFromExistingTags(@TempDir final Path tmp) throws Exception {
+        for (final String tag : new String[]{"2", "1"}) {
+            final Path link = tmp.resolve(
+                String.format(
+                    "docker/registry/v2/repositories/other/_manifests/tags/%s/current/link", tag
+                )
+            );
+            Files.createDirectories(link.getParent());
+            Files.write(link, "sha256:0000".getBytes(StandardCharsets.UTF_8));
+        }
+        final Repo other = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("other"));
+        MatcherAssert.assertThat(
+            "Index was not built",
+            other.tags("", 10).get(),
+            Matchers.contains("1", "2")
+        );
+        other.putManifest(new ManifestRef("0"), AstoRepoITCase.json("{}")).get();
+        MatcherAssert.assertThat(
+            "Index was not updated",
+            other.tags("", 10).get(),
+            Matchers.contains("0", "1", "2")
+        );
+    }
+
+    /**
+     * Flow of image manifest with single layer and config.
+     * @param layer Layer and config digest
+     * @return Flow
+     */
+    private static Flow.Publisher<ByteBuffer> manifest(final Digest layer) {
+        final String digest = String.join(":", layer.alg(), layer.digest());
+        return AstoRepoITCase.json(
+            String.join(
+                "",
+                "{\"schemaVersion\":2,\"config\":{\"digest\":\"", digest,
+                "\"},\"layers\":[{\"digest\":\"", digest, "\"}]}"
+            )
+        );
+    }
+
+    /**
+     * Flow of JSON text.
+     * @param json JSON text
+     * @return Flow
+     */
+    private static Flow.Publisher<ByteBuffer> json(final String json) {
+        return FlowAdapters.toFlowPublisher(
+            Flowable.fromArray(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
 }
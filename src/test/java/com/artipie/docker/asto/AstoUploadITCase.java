@@ -0,0 +1,329 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.fs.FileStorage;
+import com.artipie.docker.Digest;
+import com.artipie.docker.Repo;
+import com.artipie.docker.RepoName;
+import com.artipie.docker.Upload;
+import com.artipie.docker.misc.BufferPool;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Integration test for {@link AstoUpload}.
+ * @since 0.2
+ */
+@DisabledIfSystemProperty(named = "os.name", matches = "Windows.*")
+final class AstoUploadITCase {
+
+    /**
+     * Digest of {@code hello world}.
+     */
+    private static final String HELLO =
+        "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    /**
+     * Storage root.
+     */
+    private Path root;
+
+    /**
+     * Repository.
+     */
+    private Repo repo;
+
+    @BeforeEach
+    void setUp(@TempDir final Path tmp) {
+        this.root = tmp;
+        this.repo = new AstoDocker(
+            new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp)
+        ).repo(new RepoName.Simple("my-repo"));
+    }
+
+    @Test
+    void uploadsBlobByChunks() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        final long offset = upload.append(0, AstoUploadITCase.chunk("hello ")).get();
+        final Upload resumed = this.repo.uploads().get(upload.uuid()).get();
+        MatcherAssert.assertThat("Wrong offset", resumed.offset().get(), Matchers.is(offset));
+        resumed.append(offset, AstoUploadITCase.chunk("world")).get();
+        final Digest digest = resumed.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get();
+        MatcherAssert.assertThat(
+            "Wrong blob",
+            new String(
+                Files.readAllBytes(
+                    this.root.resolve("docker/registry/v2/blobs/sha256/b9")
+                        .resolve(digest.digest()).resolve("data")
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("hello world")
+        );
+        MatcherAssert.assertThat(
+            "Wrong blob size",
+            new String(
+                Files.readAllBytes(
+                    this.root.resolve("docker/registry/v2/blobs/sha256/b9")
+                        .resolve(digest.digest()).resolve("size")
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("11")
+        );
+        MatcherAssert.assertThat(
+            "Layer is not linked",
+            this.repo.layer("sha256", AstoUploadITCase.HELLO).get(),
+            Matchers.equalTo(digest)
+        );
+        MatcherAssert.assertThat(
+            "Upload was not removed",
+            Files.exists(
+                this.root.resolve("docker/registry/v2/repositories/my-repo/_uploads")
+                    .resolve(upload.uuid())
+            ),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void restoresMissingHashState() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        upload.append(0, AstoUploadITCase.chunk("hello ")).get();
+        Files.delete(
+            this.root.resolve("docker/registry/v2/repositories/my-repo/_uploads")
+                .resolve(upload.uuid()).resolve("hashstates/sha256/6")
+        );
+        upload.append(6, AstoUploadITCase.chunk("world")).get();
+        MatcherAssert.assertThat(
+            upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get().digest(),
+            Matchers.equalTo(AstoUploadITCase.HELLO)
+        );
+    }
+
+    @Test
+    void commitsWithoutHashState() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        upload.append(0, AstoUploadITCase.chunk("hello world")).get();
+        Files.delete(
+            this.root.resolve("docker/registry/v2/repositories/my-repo/_uploads")
+                .resolve(upload.uuid()).resolve("hashstates/sha256/11")
+        );
+        MatcherAssert.assertThat(
+            "Wrong digest",
+            upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get().digest(),
+            Matchers.equalTo(AstoUploadITCase.HELLO)
+        );
+        MatcherAssert.assertThat(
+            "Wrong blob",
+            new String(
+                Files.readAllBytes(
+                    this.root.resolve("docker/registry/v2/blobs/sha256/b9")
+                        .resolve(AstoUploadITCase.HELLO).resolve("data")
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("hello world")
+        );
+    }
+
+    @Test
+    void serializesAppendsAtSameOffset() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        final List<CompletableFuture<Long>> appends = Arrays.asList(
+            upload.append(0, AstoUploadITCase.chunk("hello world")),
+            this.repo.uploads().get(upload.uuid()).get()
+                .append(0, AstoUploadITCase.chunk("other chunk"))
+        );
+        CompletableFuture.allOf(appends.toArray(new CompletableFuture<?>[0]))
+            .handle((none, err) -> none).get(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(
+            "Both appends were accepted",
+            appends.stream().filter(CompletableFuture::isCompletedExceptionally).count(),
+            Matchers.equalTo(1L)
+        );
+        MatcherAssert.assertThat(
+            "Wrong offset",
+            upload.offset().get(1, TimeUnit.MINUTES),
+            Matchers.equalTo(11L)
+        );
+    }
+
+    @Test
+    void failsToCommitMissingChunk() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        upload.append(0, AstoUploadITCase.chunk("hello ")).get();
+        upload.append(6, AstoUploadITCase.chunk("world")).get();
+        Files.delete(
+            this.root.resolve("docker/registry/v2/repositories/my-repo/_uploads")
+                .resolve(upload.uuid()).resolve("chunks/6-5")
+        );
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO))
+                .get(1, TimeUnit.MINUTES)
+        );
+        MatcherAssert.assertThat(
+            "Blob was stored",
+            Files.exists(this.root.resolve("docker/registry/v2/blobs")),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void appendsChunksToSingleFile(@TempDir final Path tmp) throws Exception {
+        final Repo fs = new AstoDocker(
+            new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp),
+            new Append.FileSystem(tmp), new FileSystemBlobs(tmp)
+        ).repo(new RepoName.Simple("my-repo"));
+        final Upload upload = fs.uploads().start().get();
+        final Path dir = tmp.resolve("docker/registry/v2/repositories/my-repo/_uploads")
+            .resolve(upload.uuid());
+        upload.append(0, AstoUploadITCase.chunk("hello ")).get();
+        Files.write(dir.resolve("data"), "hello ".getBytes(StandardCharsets.UTF_8));
+        Files.write(
+            dir.resolve("data"), "garbage".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND
+        );
+        upload.append(6, AstoUploadITCase.chunk("world")).get();
+        MatcherAssert.assertThat(
+            "Chunks were not appended to single file",
+            new String(Files.readAllBytes(dir.resolve("data")), StandardCharsets.UTF_8),
+            Matchers.equalTo("hello world")
+        );
+        upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get();
+        MatcherAssert.assertThat(
+            "Wrong blob",
+            new String(
+                Files.readAllBytes(
+                    tmp.resolve("docker/registry/v2/blobs/sha256/b9")
+                        .resolve(AstoUploadITCase.HELLO).resolve("data")
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("hello world")
+        );
+        MatcherAssert.assertThat("Upload was not removed", Files.exists(dir), Matchers.is(false));
+    }
+
+    @Test
+    void hashesSingleFileWithPooledBuffers(@TempDir final Path tmp) throws Exception {
+        final BufferPool pool = new BufferPool();
+        final Repo fs = new AstoDocker(
+            new FileStorage(tmp), new Move.FileSystem(tmp), new Delete.FileSystem(tmp),
+            new Append.FileSystem(tmp, pool), new FileSystemBlobs(tmp)
+        ).repo(new RepoName.Simple("my-repo"));
+        final Upload upload = fs.uploads().start().get();
+        final Path dir = tmp.resolve("docker/registry/v2/repositories/my-repo/_uploads")
+            .resolve(upload.uuid());
+        upload.append(0, AstoUploadITCase.chunk("hello ")).get();
+        Files.delete(dir.resolve("hashstates/sha256/6"));
+        upload.append(6, AstoUploadITCase.chunk("world")).get();
+        Files.delete(dir.resolve("hashstates/sha256/11"));
+        MatcherAssert.assertThat(
+            "Wrong digest",
+            upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get().digest(),
+            Matchers.equalTo(AstoUploadITCase.HELLO)
+        );
+        MatcherAssert.assertThat("Buffer was not reused", pool.hits(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void failsOnWrongOffset() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        upload.append(0, AstoUploadITCase.chunk("abc")).get();
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> upload.append(1, AstoUploadITCase.chunk("d")).get()
+        );
+    }
+
+    @Test
+    void failsOnDigestMismatch() throws Exception {
+        final Upload upload = this.repo.uploads().start().get();
+        upload.append(0, AstoUploadITCase.chunk("hello")).get();
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get()
+        );
+    }
+
+    @Test
+    void failsOnUnknownUpload() {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> this.repo.uploads().get("1b4e28ba-2fa1-11d2-883f-0016d3cca427").get()
+        );
+    }
+
+    @Test
+    void forgetsCommittedUploadWithDefaultOperations(@TempDir final Path tmp)
+        throws Exception {
+        final Repo def = new AstoRepo(new FileStorage(tmp), new RepoName.Simple("my-repo"));
+        final Upload upload = def.uploads().start().get(1, TimeUnit.MINUTES);
+        upload.append(0, AstoUploadITCase.chunk("hello world")).get(1, TimeUnit.MINUTES);
+        upload.commit(new Digest.Sha256(AstoUploadITCase.HELLO)).get(1, TimeUnit.MINUTES);
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> def.uploads().get(upload.uuid()).get(1, TimeUnit.MINUTES),
+            "Committed upload was found"
+        );
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> upload.offset().get(1, TimeUnit.MINUTES),
+            "Committed upload has offset"
+        );
+    }
+
+    /**
+     * Chunk of text.
+     * @param text Text
+     * @return Publisher
+     */
+    private static Flow.Publisher<ByteBuffer> chunk(final String text) {
+        return FlowAdapters.toFlowPublisher(
+            Flowable.just(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+}
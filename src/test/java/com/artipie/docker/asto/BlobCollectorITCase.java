@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Storage;
+import com.artipie.asto.fs.FileStorage;
+import com.artipie.docker.BlobStore;
+import com.artipie.docker.Digest;
+import com.artipie.docker.Repo;
+import com.artipie.docker.RepoName;
+import com.artipie.docker.ref.ManifestRef;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Integration test for {@link BlobCollector}.
+ * @since 0.2
+ */
+@DisabledIfSystemProperty(named = "os.name", matches = "Windows.*")
+final class BlobCollectorITCase {
+
+    /**
+     * Storage root.
+     */
+    private Path root;
+
+    /**
+     * Storage.
+     */
+    private Storage asto;
+
+    /**
+     * Linked layer.
+     */
+    private Digest layer;
+
+    /**
+     * Unreferenced blob.
+     */
+    private Digest garbage;
+
+    @BeforeEach
+    void setUp(@TempDir final Path tmp) throws Exception {
+        this.root = tmp;
+        this.asto = new FileStorage(tmp);
+        final BlobStore blobs = new AstoBlobs(this.asto);
+        this.layer = blobs.put(BlobCollectorITCase.flow("layer")).get();
+        this.garbage = blobs.put(BlobCollectorITCase.flow("garbage")).get();
+        final Repo repo = new AstoRepo(this.asto, new RepoName.Simple("test"));
+        repo.mount(this.layer).get();
+        repo.putManifest(
+            new ManifestRef("latest"),
+            BlobCollectorITCase.flow(
+                String.format(
+                    "{\"layers\":[{\"digest\":\"%s:%s\"}]}", this.layer.alg(), this.layer.digest()
+                )
+            )
+        ).get();
+    }
+
+    @Test
+    void findsGarbageOnDryRun() throws Exception {
+        final BlobCollector.Progress prg = new BlobCollector(
+            this.asto, new Delete.FileSystem(this.root), Duration.ZERO
+        ).collect(true).get();
+        MatcherAssert.assertThat("Wrong number of marked blobs", prg.marked(), Matchers.is(2L));
+        MatcherAssert.assertThat("Wrong number of blobs", prg.blobs(), Matchers.is(3L));
+        MatcherAssert.assertThat("Wrong number of garbage", prg.garbage(), Matchers.is(1L));
+        MatcherAssert.assertThat("Blob was removed", prg.removed(), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            "Garbage is missing",
+            Files.exists(this.root.resolve(AstoBlobs.data(this.garbage).string())),
+            Matchers.is(true)
+        );
+    }
+
+    @Test
+    void removesUnreferencedBlobs() throws Exception {
+        final BlobCollector.Progress prg = new BlobCollector(
+            this.asto, new Delete.FileSystem(this.root), Duration.ZERO
+        ).collect(false).get();
+        MatcherAssert.assertThat("Wrong number of removed blobs", prg.removed(), Matchers.is(1L));
+        MatcherAssert.assertThat(
+            "Garbage was not removed",
+            Files.exists(this.root.resolve(AstoBlobs.data(this.garbage).string())),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            "Linked blob was removed",
+            Files.exists(this.root.resolve(AstoBlobs.data(this.layer).string())),
+            Matchers.is(true)
+        );
+    }
+
+    @Test
+    void collectsThousandsOfBlobs() throws Exception {
+        // @checkstyle MagicNumberCheck (1 line)
+        final int count = 5000;
+        for (int idx = 0; idx < count; ++idx) {
+            final Path data = this.root.resolve(
+                AstoBlobs.data(new Digest.Sha256(String.format("%064x", idx))).string()
+            );
+            Files.createDirectories(data.getParent());
+            Files.write(data, new byte[]{0x00});
+        }
+        final BlobCollector collector = new BlobCollector(
+            this.asto, new Delete.FileSystem(this.root), Duration.ZERO
+        );
+        MatcherAssert.assertThat(
+            "Wrong number of garbage on dry run",
+            collector.collect(true).get().garbage(),
+            Matchers.is(count + 1L)
+        );
+        MatcherAssert.assertThat(
+            "Wrong number of removed blobs",
+            collector.collect(false).get().removed(),
+            Matchers.is(count + 1L)
+        );
+        MatcherAssert.assertThat(
+            "Linked blobs were not kept",
+            collector.collect(true).get().blobs(),
+            Matchers.is(2L)
+        );
+    }
+
+    @Test
+    void keepsBlobsPushedAfterListing() throws Exception {
+        final CompletableFuture<BlobCollector.Progress> res = new BlobCollector(
+            this.asto, new Delete.FileSystem(this.root), Duration.ofSeconds(1)
+        ).collect(false);
+        final Path pushed = this.root.resolve(
+            AstoBlobs.data(new Digest.Sha256(String.format("%064x", 1))).string()
+        );
+        Files.createDirectories(pushed.getParent());
+        Files.write(pushed, new byte[]{0x00});
+        MatcherAssert.assertThat(
+            "Wrong number of removed blobs",
+            res.get(1, TimeUnit.MINUTES).removed(),
+            Matchers.is(1L)
+        );
+        MatcherAssert.assertThat(
+            "Pushed blob was removed", Files.exists(pushed), Matchers.is(true)
+        );
+    }
+
+    @Test
+    void collectsEmptyRegistry(@TempDir final Path tmp) throws Exception {
+        MatcherAssert.assertThat(
+            new BlobCollector(new FileStorage(tmp), new Delete.FileSystem(tmp), Duration.ZERO)
+                .collect(false).get(1, TimeUnit.MINUTES).blobs(),
+            Matchers.is(0L)
+        );
+    }
+
+    @Test
+    void failsWhenStorageFailsToList() {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new BlobCollector(
+                new ListFailingStorage(this.asto), new Delete.FileSystem(this.root), Duration.ZERO
+            ).collect(false).get(1, TimeUnit.MINUTES)
+        );
+        MatcherAssert.assertThat(
+            "Garbage was removed",
+            Files.exists(this.root.resolve(AstoBlobs.data(this.garbage).string())),
+            Matchers.is(true)
+        );
+    }
+
+    @Test
+    void rejectsTruncatingDelete() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new BlobCollector(this.asto, new Delete.Truncate(this.asto))
+        );
+    }
+
+    /**
+     * Flow of text.
+     * @param text Text
+     * @return Flow
+     */
+    private static Flow.Publisher<ByteBuffer> flow(final String text) {
+        return FlowAdapters.toFlowPublisher(
+            Flowable.fromArray(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)))
+        );
+    }
+}
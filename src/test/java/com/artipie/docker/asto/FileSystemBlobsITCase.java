@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Remaining;
+import com.artipie.docker.BlobStore;
+import com.artipie.docker.Digest;
+import com.artipie.docker.misc.BufferPool;
+import com.artipie.docker.misc.BytesFlowAs;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Integration test for {@link FileSystemBlobs}.
+ * @since 0.2
+ */
+@DisabledIfSystemProperty(named = "os.name", matches = "Windows.*")
+final class FileSystemBlobsITCase {
+
+    /**
+     * Blob data.
+     */
+    private byte[] data;
+
+    /**
+     * Blob store.
+     */
+    private BlobStore blobs;
+
+    /**
+     * Blob digest.
+     */
+    private Digest digest;
+
+    @BeforeEach
+    void setUp(@TempDir final Path tmp) throws Exception {
+        // @checkstyle MagicNumberCheck (1 line)
+        this.data = new byte[3 * 1024 * 1024 + 17];
+        new Random().nextBytes(this.data);
+        this.blobs = new FileSystemBlobs(tmp);
+        this.digest = this.blobs.put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(this.data)))
+        ).get();
+    }
+
+    @Test
+    void readsMappedBlob() throws Exception {
+        MatcherAssert.assertThat(
+            FileSystemBlobsITCase.bytes(this.blobs.blob(this.digest).get()),
+            Matchers.equalTo(this.data)
+        );
+    }
+
+    @Test
+    void readsMappedRange() throws Exception {
+        // @checkstyle MagicNumberCheck (2 lines)
+        final int offset = 1024 * 1024 - 1;
+        final int length = 1024 * 1024 + 2;
+        final byte[] expected = new byte[length];
+        System.arraycopy(this.data, offset, expected, 0, length);
+        MatcherAssert.assertThat(
+            FileSystemBlobsITCase.bytes(this.blobs.blob(this.digest, offset, length).get()),
+            Matchers.equalTo(expected)
+        );
+    }
+
+    @Test
+    void readsSizeOfFile() throws Exception {
+        MatcherAssert.assertThat(
+            this.blobs.size(this.digest).get(),
+            Matchers.equalTo((long) this.data.length)
+        );
+    }
+
+    /**
+     * Read all bytes.
+     * @param pub Publisher
+     * @return Bytes
+     * @throws Exception If fails
+     */
+    private static byte[] bytes(final Flow.Publisher<ByteBuffer> pub) throws Exception {
+        return new Remaining(
+            new BytesFlowAs.Bytes(
+                pub,
+                // @checkstyle MagicNumberCheck (1 line)
+                new BytesFlowAs.Window(16, 8 * 1024 * 1024)
+            ).future().get()
+        ).bytes();
+    }
+
+    @Test
+    void releasesWrittenBuffersToPool(@TempDir final Path tmp) throws Exception {
+        final BufferPool pool = new BufferPool();
+        final ByteBuffer buf = pool.acquire(4);
+        buf.put(new byte[]{0x00, 0x01, 0x02, 0x03}).flip();
+        final Digest digest = new FileSystemBlobs(tmp).put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(buf)), pool
+        ).get();
+        MatcherAssert.assertThat(
+            "Wrong digest",
+            digest.digest(),
+            Matchers.equalTo("054edec1d0211f624fed0cbca9d4f9400b0e491c43742af2c5b0abebf0c990d8")
+        );
+        MatcherAssert.assertThat(
+            "Buffer was not released",
+            pool.acquire(4),
+            Matchers.sameInstance(buf)
+        );
+    }
+
+    @Test
+    void keepsBuffersOfPlainPut(@TempDir final Path tmp) throws Exception {
+        final BufferPool pool = new BufferPool();
+        final ByteBuffer buf = pool.acquire(4);
+        buf.put(new byte[]{0x00, 0x01, 0x02, 0x03}).flip();
+        new FileSystemBlobs(tmp).put(FlowAdapters.toFlowPublisher(Flowable.fromArray(buf)))
+            .get();
+        MatcherAssert.assertThat(
+            "Caller buffer was released",
+            pool.acquire(4),
+            Matchers.not(Matchers.sameInstance(buf))
+        );
+    }
+
+    @Test
+    void doesNotStoreMismatchedBlob(@TempDir final Path tmp) {
+        final BlobStore store = new FileSystemBlobs(tmp);
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> store.put(
+                this.digest,
+                FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(new byte[]{1})))
+            ).get()
+        );
+        MatcherAssert.assertThat(
+            "Upload was not deleted",
+            Files.list(tmp.resolve("docker/registry/v2/uploads")).count(),
+            Matchers.equalTo(0L)
+        );
+    }
+}
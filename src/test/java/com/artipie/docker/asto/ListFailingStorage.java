@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.Transaction;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Storage which fails to list keys.
+ * @since 0.2
+ */
+final class ListFailingStorage implements Storage {
+
+    /**
+     * Origin storage.
+     */
+    private final Storage origin;
+
+    /**
+     * Ctor.
+     * @param origin Origin storage
+     */
+    ListFailingStorage(final Storage origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(final Key key) {
+        return this.origin.exists(key);
+    }
+
+    @Override
+    public CompletableFuture<Collection<Key>> list(final String prefix) {
+        return CompletableFuture.failedFuture(
+            new IllegalStateException(String.format("Failed to list %s", prefix))
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> save(final Key key, final Flow.Publisher<ByteBuffer> content) {
+        return this.origin.save(key, content);
+    }
+
+    @Override
+    public CompletableFuture<Flow.Publisher<ByteBuffer>> value(final Key key) {
+        return this.origin.value(key);
+    }
+
+    @Override
+    public CompletableFuture<Transaction> transaction(final List<Key> keys) {
+        return this.origin.transaction(keys);
+    }
+}
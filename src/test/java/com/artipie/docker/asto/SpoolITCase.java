@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.asto;
+
+import com.artipie.asto.Storage;
+import com.artipie.asto.fs.FileStorage;
+import com.artipie.docker.BlobStore;
+import com.artipie.docker.Digest;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Integration test for {@link Spool}.
+ * @since 0.2
+ */
+@DisabledIfSystemProperty(named = "os.name", matches = "Windows.*")
+final class SpoolITCase {
+
+    /**
+     * Storage root.
+     */
+    private Path root;
+
+    /**
+     * Spool directory.
+     */
+    private Path dir;
+
+    /**
+     * Storage.
+     */
+    private Storage asto;
+
+    @BeforeEach
+    void setUp(@TempDir final Path tmp) throws Exception {
+        this.root = Files.createDirectory(tmp.resolve("storage"));
+        this.dir = Files.createDirectory(tmp.resolve("spool"));
+        this.asto = new FileStorage(this.root);
+    }
+
+    @Test
+    void spoolsSmallBlobInMemory() throws Exception {
+        final Spool.Directory large = new Spool.Directory(this.asto, this.dir, 1024);
+        final Digest digest = this.put(
+            new Spool.BySize(4, new Spool.Memory(this.asto, 4), large), new byte[]{0x00, 0x01}
+        );
+        MatcherAssert.assertThat(
+            "Blob was not stored",
+            Files.exists(this.root.resolve(AstoBlobs.data(digest).string())),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            "Spool directory was used",
+            Files.list(this.dir).count(),
+            Matchers.equalTo(0L)
+        );
+    }
+
+    @Test
+    void spoolsLargeBlobInDirectory() throws Exception {
+        final Spool.Directory large = new Spool.Directory(this.asto, this.dir, 1024);
+        final byte[] data = {0x00, 0x01, 0x02, 0x03, 0x04, 0x05};
+        final Digest digest = this.put(
+            new Spool.BySize(4, new Spool.Memory(this.asto, 4), large), data
+        );
+        MatcherAssert.assertThat(
+            "Blob content is not correct",
+            Files.readAllBytes(this.root.resolve(AstoBlobs.data(digest).string())),
+            Matchers.equalTo(data)
+        );
+        MatcherAssert.assertThat("Spool file was not removed", large.used(), Matchers.equalTo(0L));
+    }
+
+    @Test
+    void failsWhenQuotaIsExceeded() {
+        final Spool.Directory spool = new Spool.Directory(this.asto, this.dir, 4);
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> this.put(spool, new byte[]{0x00, 0x01, 0x02, 0x03, 0x04})
+        );
+        MatcherAssert.assertThat("Quota was not released", spool.used(), Matchers.equalTo(0L));
+    }
+
+    /**
+     * Put data to blob store with spool.
+     * @param spool Spool
+     * @param data Data
+     * @return Digest
+     * @throws Exception If fails
+     */
+    private Digest put(final Spool spool, final byte[] data) throws Exception {
+        final BlobStore blobs = new AstoBlobs(this.asto, spool, new ReadRange.Skip(this.asto));
+        return blobs.put(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.wrap(data)))
+        ).get();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link BoundedParallel}.
+ * @since 0.2
+ */
+final class BoundedParallelTest {
+
+    @Test
+    void runsOperationForEachItem() throws Exception {
+        final List<Integer> done = Collections.synchronizedList(new ArrayList<>(0));
+        new BoundedParallel<>(Arrays.asList(1, 2, 3, 4, 5), 2).forEach(
+            item -> CompletableFuture.runAsync(() -> done.add(item))
+        ).get();
+        MatcherAssert.assertThat(done, Matchers.containsInAnyOrder(1, 2, 3, 4, 5));
+    }
+
+    @Test
+    void limitsOperationsInFlight() throws Exception {
+        final List<CompletableFuture<Void>> pending = new ArrayList<>(0);
+        final AtomicInteger started = new AtomicInteger();
+        final CompletableFuture<Void> all = new BoundedParallel<>(Arrays.asList(1, 2, 3), 2)
+            .forEach(
+                item -> {
+                    started.incrementAndGet();
+                    final CompletableFuture<Void> future = new CompletableFuture<>();
+                    pending.add(future);
+                    return future;
+                }
+            );
+        MatcherAssert.assertThat("Limit is exceeded", started.get(), Matchers.equalTo(2));
+        pending.get(0).complete(null);
+        MatcherAssert.assertThat("Next item is not taken", started.get(), Matchers.equalTo(3));
+        pending.get(1).complete(null);
+        pending.get(2).complete(null);
+        all.get();
+    }
+
+    @Test
+    void failsOnOperationFailure() {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new BoundedParallel<>(Arrays.asList(1, 2, 3), 2).forEach(
+                item -> {
+                    final CompletableFuture<Void> res = new CompletableFuture<>();
+                    if (item == 2) {
+                        res.completeExceptionally(new IllegalStateException("fail"));
+                    } else {
+                        res.complete(null);
+                    }
+                    return res;
+                }
+            ).get()
+        );
+    }
+
+    @Test
+    void runsManySynchronousOperations() throws Exception {
+        // @checkstyle MagicNumberCheck (1 line)
+        final int size = 100_000;
+        final List<Integer> items = new ArrayList<>(size);
+        for (int idx = 0; idx < size; ++idx) {
+            items.add(idx);
+        }
+        final AtomicInteger done = new AtomicInteger();
+        new BoundedParallel<>(items, 2).forEach(
+            item -> {
+                done.incrementAndGet();
+                return CompletableFuture.completedFuture(item);
+            }
+        ).get();
+        MatcherAssert.assertThat(done.get(), Matchers.equalTo(size));
+    }
+
+    @Test
+    void failsOnOperationException() {
+        Assertions.assertThrows(
+            ExecutionException.class,
+            () -> new BoundedParallel<>(Arrays.asList(1, 2, 3), 2).forEach(
+                item -> {
+                    if (item == 3) {
+                        throw new IllegalStateException("fail");
+                    }
+                    return CompletableFuture.completedFuture(item);
+                }
+            ).get()
+        );
+    }
+
+    @Test
+    void completesOnEmptyItems() throws Exception {
+        new BoundedParallel<>(Collections.<Integer>emptyList(), 2)
+            .forEach(CompletableFuture::completedFuture)
+            .get();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link BufferPool}.
+ * @since 0.2
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class BufferPoolTest {
+
+    @Test
+    void reusesReleasedBuffer() {
+        final BufferPool pool = new BufferPool();
+        final ByteBuffer first = pool.acquire(5000);
+        pool.release(first);
+        final ByteBuffer second = pool.acquire(6000);
+        MatcherAssert.assertThat("Buffer was not reused", second, Matchers.sameInstance(first));
+        MatcherAssert.assertThat("Wrong limit", second.limit(), Matchers.equalTo(6000));
+        MatcherAssert.assertThat("Wrong hit rate", pool.hitRate(), Matchers.equalTo(0.5));
+    }
+
+    @Test
+    void allocatesBufferOfSizeClass() {
+        final ByteBuffer buf = new BufferPool().acquire(5000);
+        MatcherAssert.assertThat("Not direct", buf.isDirect(), Matchers.is(true));
+        MatcherAssert.assertThat("Wrong capacity", buf.capacity(), Matchers.equalTo(8192));
+    }
+
+    @Test
+    void dropsForeignBuffers() {
+        final BufferPool pool = new BufferPool();
+        final ByteBuffer foreign = ByteBuffer.allocateDirect(4096);
+        pool.release(ByteBuffer.allocate(4096));
+        pool.release(ByteBuffer.allocateDirect(4096).asReadOnlyBuffer());
+        pool.release(ByteBuffer.allocateDirect(5000));
+        pool.release(foreign);
+        MatcherAssert.assertThat("Wrong drops", pool.drops(), Matchers.equalTo(4L));
+        MatcherAssert.assertThat(
+            "Foreign buffer was pooled",
+            pool.acquire(4096),
+            Matchers.not(Matchers.sameInstance(foreign))
+        );
+    }
+
+    @Test
+    void dropsBufferReleasedTwice() {
+        final BufferPool pool = new BufferPool();
+        final ByteBuffer buf = pool.acquire(100);
+        pool.release(buf);
+        pool.release(buf);
+        MatcherAssert.assertThat("Wrong drops", pool.drops(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(
+            "Buffer was lent twice",
+            pool.acquire(100),
+            Matchers.not(Matchers.sameInstance(pool.acquire(100)))
+        );
+    }
+
+    @Test
+    void dropsBuffersOverLimit() {
+        final BufferPool pool = new BufferPool(1);
+        final ByteBuffer first = pool.acquire(100);
+        final ByteBuffer second = pool.acquire(100);
+        pool.release(first);
+        pool.release(second);
+        MatcherAssert.assertThat(pool.drops(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void allocatesLargeBuffersWithoutPooling() {
+        final BufferPool pool = new BufferPool();
+        final ByteBuffer buf = pool.acquire(3 * 1024 * 1024);
+        pool.release(buf);
+        MatcherAssert.assertThat(pool.drops(), Matchers.equalTo(1L));
+    }
+}
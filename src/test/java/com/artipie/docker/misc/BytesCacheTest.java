@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.asto.Remaining;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link BytesCache}.
+ * @since 0.2
+ */
+final class BytesCacheTest {
+
+    @Test
+    void returnsCachedData() {
+        final BytesCache cache = new BytesCache(10, true);
+        final byte[] data = {0x01, 0x02, 0x03};
+        cache.put("one", Collections.singletonList(ByteBuffer.wrap(data)));
+        MatcherAssert.assertThat(
+            new Remaining(cache.get("one").get()).bytes(),
+            Matchers.equalTo(data)
+        );
+    }
+
+    @Test
+    void evictsBySize() {
+        final BytesCache cache = new BytesCache(4);
+        cache.put("a", Collections.singletonList(ByteBuffer.wrap(new byte[2])));
+        cache.put("b", Collections.singletonList(ByteBuffer.wrap(new byte[2])));
+        cache.get("a");
+        cache.put("c", Collections.singletonList(ByteBuffer.wrap(new byte[2])));
+        MatcherAssert.assertThat("Recently used was evicted", cache.get("a").isPresent());
+        MatcherAssert.assertThat("Eldest was not evicted", !cache.get("b").isPresent());
+        MatcherAssert.assertThat("Wrong size", cache.size(), Matchers.equalTo(4L));
+        MatcherAssert.assertThat("Wrong evictions", cache.evictions(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        final BytesCache cache = new BytesCache(1);
+        cache.put("x", Collections.singletonList(ByteBuffer.wrap(new byte[1])));
+        cache.get("x");
+        cache.get("y");
+        cache.get("x");
+        MatcherAssert.assertThat("Wrong hits", cache.hits(), Matchers.equalTo(2L));
+        MatcherAssert.assertThat("Wrong misses", cache.misses(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void ignoresTooLargeData() {
+        final BytesCache cache = new BytesCache(1);
+        cache.put("big", Collections.singletonList(ByteBuffer.wrap(new byte[2])));
+        MatcherAssert.assertThat(cache.get("big").isPresent(), Matchers.is(false));
+    }
+}
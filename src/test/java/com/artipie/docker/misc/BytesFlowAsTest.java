@@ -23,13 +23,19 @@
  */
 package com.artipie.docker.misc;
 
+import com.artipie.docker.Digest;
 import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 import javax.json.Json;
+import javax.json.JsonException;
 import javax.json.JsonObject;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.FlowAdapters;
 
@@ -53,6 +59,30 @@ final class BytesFlowAsTest {
         );
     }
 
+    @Test
+    void parsesEmptyText() throws Exception {
+        MatcherAssert.assertThat(
+            new BytesFlowAs.Text(FlowAdapters.toFlowPublisher(Flowable.empty()))
+                .future().get(),
+            Matchers.emptyString()
+        );
+    }
+
+    @Test
+    void failsOnMalformedManifest() {
+        final CompletableFuture<ManifestView> future = new BytesFlowAs.Manifest(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap("{\"layers\":[".getBytes(StandardCharsets.UTF_8))
+                )
+            )
+        ).future();
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(ExecutionException.class, future::get).getCause(),
+            Matchers.instanceOf(JsonException.class)
+        );
+    }
+
     @Test
     void parsesJson() throws Exception {
         final JsonObject json = Json.createObjectBuilder()
@@ -69,4 +99,90 @@ final class BytesFlowAsTest {
             Matchers.equalTo(json)
         );
     }
+
+    @Test
+    void readsManyChunksWithSmallWindow() throws Exception {
+        final ByteBuffer[] chunks = new ByteBuffer[10];
+        final StringBuilder txt = new StringBuilder();
+        for (int pos = 0; pos < chunks.length; ++pos) {
+            txt.append(pos);
+            chunks[pos] = ByteBuffer.wrap(String.valueOf(pos).getBytes(StandardCharsets.UTF_8));
+        }
+        MatcherAssert.assertThat(
+            new BytesFlowAs.Text(
+                FlowAdapters.toFlowPublisher(Flowable.fromArray(chunks)),
+                StandardCharsets.UTF_8,
+                new BytesFlowAs.Window(2, Long.MAX_VALUE)
+            ).future().get(),
+            Matchers.equalTo(txt.toString())
+        );
+    }
+
+    @Test
+    void failsWhenLimitExceeded() {
+        final CompletableFuture<String> future = new BytesFlowAs.Text(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap(new byte[]{0x61, 0x62}),
+                    ByteBuffer.wrap(new byte[]{0x63, 0x64})
+                )
+            ),
+            StandardCharsets.UTF_8,
+            // @checkstyle MagicNumberCheck (1 line)
+            new BytesFlowAs.Window(4, 3)
+        ).future();
+        Assertions.assertThrows(ExecutionException.class, future::get);
+    }
+
+    @Test
+    void parsesTextFromSplitMultibyteChars() throws Exception {
+        final String txt = "\u0436\u0430\u0431\u0430";
+        final byte[] bytes = txt.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer[] chunks = new ByteBuffer[bytes.length];
+        for (int pos = 0; pos < bytes.length; ++pos) {
+            chunks[pos] = ByteBuffer.wrap(bytes, pos, 1);
+        }
+        MatcherAssert.assertThat(
+            new BytesFlowAs.Text(
+                FlowAdapters.toFlowPublisher(Flowable.fromArray(chunks))
+            ).future().get(),
+            Matchers.equalTo(txt)
+        );
+    }
+
+    @Test
+    void parsesManifestView() throws Exception {
+        final JsonObject json = Json.createObjectBuilder()
+            .add("schemaVersion", 2)
+            .add("mediaType", "application/vnd.docker.distribution.manifest.v2+json")
+            .add(
+                "config",
+                Json.createObjectBuilder()
+                    .add("mediaType", "application/vnd.docker.container.image.v1+json")
+                    .add("digest", "sha256:0001")
+            )
+            .add(
+                "layers",
+                Json.createArrayBuilder()
+                    .add(Json.createObjectBuilder().add("digest", "sha256:0002"))
+                    .add(Json.createObjectBuilder().add("digest", "sha256:0003"))
+            ).build();
+        final ManifestView view = new BytesFlowAs.Manifest(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap(json.toString().getBytes(StandardCharsets.UTF_8))
+                )
+            )
+        ).future().get();
+        MatcherAssert.assertThat(
+            "Wrong media type",
+            view.mediaType(),
+            Matchers.equalTo("application/vnd.docker.distribution.manifest.v2+json")
+        );
+        MatcherAssert.assertThat(
+            "Wrong blobs",
+            view.blobs().stream().map(Digest::digest).collect(Collectors.toList()),
+            Matchers.contains("0001", "0002", "0003")
+        );
+    }
 }
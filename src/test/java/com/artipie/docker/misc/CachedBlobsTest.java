@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.asto.Remaining;
+import com.artipie.docker.BlobStore;
+import com.artipie.docker.Digest;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Test case for {@link CachedBlobs}.
+ * @since 0.2
+ */
+final class CachedBlobsTest {
+
+    @Test
+    void readsSmallBlobOnlyOnce() throws Exception {
+        final FakeBlobs origin = new FakeBlobs(new byte[]{0x01, 0x02});
+        final BlobStore blobs = new CachedBlobs(origin, new BytesCache(10), 2);
+        final Digest digest = new Digest.Sha256("0000");
+        CachedBlobsTest.read(blobs, digest);
+        MatcherAssert.assertThat(
+            "Wrong content",
+            CachedBlobsTest.read(blobs, digest),
+            Matchers.equalTo(new byte[]{0x01, 0x02})
+        );
+        MatcherAssert.assertThat("Origin was read twice", origin.reads.get(), Matchers.is(1));
+    }
+
+    @Test
+    void keepsCachedBlobWhenUpstreamReusesBuffer() throws Exception {
+        final byte[] data = {0x01, 0x02};
+        final BlobStore blobs = new CachedBlobs(new FakeBlobs(data), new BytesCache(10), 2);
+        final Digest digest = new Digest.Sha256("0002");
+        Flowable.fromPublisher(FlowAdapters.toPublisher(blobs.blob(digest).get()))
+            .doOnNext(buf -> Arrays.fill(data, (byte) 0))
+            .blockingSubscribe();
+        MatcherAssert.assertThat(
+            CachedBlobsTest.read(blobs, digest),
+            Matchers.equalTo(new byte[]{0x01, 0x02})
+        );
+    }
+
+    @Test
+    void doesNotCacheLargeBlob() throws Exception {
+        final FakeBlobs origin = new FakeBlobs(new byte[]{0x01, 0x02, 0x03});
+        final BlobStore blobs = new CachedBlobs(origin, new BytesCache(10), 2);
+        final Digest digest = new Digest.Sha256("0001");
+        CachedBlobsTest.read(blobs, digest);
+        CachedBlobsTest.read(blobs, digest);
+        MatcherAssert.assertThat(origin.reads.get(), Matchers.is(2));
+    }
+
+    /**
+     * Read blob data.
+     * @param blobs Blob store
+     * @param digest Digest
+     * @return Bytes
+     * @throws Exception On error
+     */
+    private static byte[] read(final BlobStore blobs, final Digest digest) throws Exception {
+        return new Remaining(
+            Flowable.fromPublisher(FlowAdapters.toPublisher(blobs.blob(digest).get()))
+                .blockingFirst()
+        ).bytes();
+    }
+
+    /**
+     * Fake blob store which counts reads.
+     * @since 0.2
+     */
+    private static final class FakeBlobs implements BlobStore {
+
+        /**
+         * Reads counter.
+         */
+        private final AtomicInteger reads;
+
+        /**
+         * Blob data.
+         */
+        private final byte[] data;
+
+        /**
+         * Ctor.
+         * @param data Blob data
+         */
+        FakeBlobs(final byte[] data) {
+            this.data = data;
+            this.reads = new AtomicInteger();
+        }
+
+        @Override
+        public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest) {
+            this.reads.incrementAndGet();
+            return CompletableFuture.completedFuture(
+                FlowAdapters.toFlowPublisher(Flowable.just(ByteBuffer.wrap(this.data)))
+            );
+        }
+
+        @Override
+        public CompletableFuture<Flow.Publisher<ByteBuffer>> blob(final Digest digest,
+            final long offset, final long length) {
+            return this.blob(digest).thenApply(pub -> new RangeFlow(pub, offset, length));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(final Digest digest) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public CompletableFuture<Long> size(final Digest digest) {
+            return CompletableFuture.completedFuture((long) this.data.length);
+        }
+
+        @Override
+        public CompletableFuture<Digest> put(final Flow.Publisher<ByteBuffer> blob) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Digest> put(final Digest expected,
+            final Flow.Publisher<ByteBuffer> blob) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link DigestSet}.
+ * @since 0.2
+ */
+final class DigestSetTest {
+
+    /**
+     * First digest hex.
+     */
+    private static final String FIRST =
+        "ff0000000000000000000000000000000000000000000000000000000000000a";
+
+    /**
+     * Second digest hex.
+     */
+    private static final String SECOND =
+        "00000000000000000000000000000000000000000000000000000000000000b1";
+
+    @Test
+    void containsAddedDigests() {
+        final DigestSet set = new DigestSet();
+        set.add(DigestSetTest.FIRST);
+        set.add(DigestSetTest.SECOND);
+        set.add(DigestSetTest.FIRST);
+        MatcherAssert.assertThat("Wrong size", set.size(), Matchers.is(2));
+        MatcherAssert.assertThat(
+            "Doesn't contain first",
+            set.contains(DigestSetTest.FIRST),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            "Doesn't contain second",
+            set.contains(DigestSetTest.SECOND),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            "Contains missing",
+            set.contains(DigestSetTest.FIRST.replace('a', 'c')),
+            Matchers.is(false)
+        );
+    }
+
+    @Test
+    void growsOverInitialCapacity() {
+        final DigestSet set = new DigestSet();
+        // @checkstyle MagicNumberCheck (1 line)
+        for (int idx = 0; idx < 100; ++idx) {
+            set.add(String.format("%064x", idx));
+        }
+        // @checkstyle MagicNumberCheck (2 lines)
+        MatcherAssert.assertThat(set.size(), Matchers.is(100));
+        MatcherAssert.assertThat(set.contains(String.format("%064x", 42)), Matchers.is(true));
+    }
+
+    @Test
+    void ignoresInvalidDigests() {
+        final DigestSet set = new DigestSet();
+        MatcherAssert.assertThat("Short digest added", set.add("0000"), Matchers.is(false));
+        MatcherAssert.assertThat(
+            "Non-hex digest added",
+            set.add(DigestSetTest.FIRST.replace('a', 'z')),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(set.size(), Matchers.is(0));
+    }
+}
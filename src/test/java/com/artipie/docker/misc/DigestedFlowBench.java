@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.docker.Digest;
+import com.artipie.docker.asto.FileSystemBlobs;
+import io.reactivex.Flowable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.cactoos.io.BytesOf;
+import org.cactoos.text.HexOf;
+import org.cactoos.text.UncheckedText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Benchmark of hashing blob data while it's written to file.
+ * <p>
+ * Compares hashing in the writer thread, as blob stores did before,
+ * with {@link DigestedFlow}, which hashes on separate thread concurrently
+ * with writes, and with {@link FileSystemBlobs} put. Blobs of 1 MiB,
+ * 100 MiB and 1 GiB are published as 1 MiB chunks. Run it after
+ * <code>mvn test-compile</code> with test classpath:
+ * <code>java com.artipie.docker.misc.DigestedFlowBench</code>.
+ * </p>
+ * @since 0.2
+ * @checkstyle MagicNumberCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class DigestedFlowBench {
+
+    /**
+     * Chunk size.
+     */
+    private static final int CHUNK = 1024 * 1024;
+
+    /**
+     * Blob size in MiB.
+     */
+    @Param({"1", "100", "1024"})
+    public int mebibytes;
+
+    /**
+     * Chunk data.
+     */
+    private ByteBuffer chunk;
+
+    /**
+     * Temporary directory.
+     */
+    private Path dir;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] data = new byte[DigestedFlowBench.CHUNK];
+        new Random(0).nextBytes(data);
+        this.chunk = ByteBuffer.allocateDirect(DigestedFlowBench.CHUNK);
+        this.chunk.put(data).flip();
+        this.dir = Files.createTempDirectory(DigestedFlowBench.class.getSimpleName());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(
+                file -> {
+                    try {
+                        Files.delete(file);
+                    } catch (final IOException err) {
+                        throw new UncheckedIOException(err);
+                    }
+                }
+            );
+        }
+    }
+
+    @Benchmark
+    public Digest sequential() throws Exception {
+        final MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        try (FileChannel chan = this.channel()) {
+            this.data().blockingForEach(
+                buf -> {
+                    sha.update(buf.duplicate());
+                    DigestedFlowBench.write(chan, buf);
+                }
+            );
+        }
+        return new Digest.Sha256(
+            new UncheckedText(new HexOf(new BytesOf(sha.digest()))).asString()
+        );
+    }
+
+    @Benchmark
+    public Digest concurrent() throws Exception {
+        final DigestedFlow flow = new DigestedFlow(FlowAdapters.toFlowPublisher(this.data()));
+        try (FileChannel chan = this.channel()) {
+            Flowable.fromPublisher(FlowAdapters.toPublisher(flow)).blockingForEach(
+                buf -> DigestedFlowBench.write(chan, buf)
+            );
+        }
+        return flow.digest().get();
+    }
+
+    @Benchmark
+    public Digest fileSystemBlobs() throws Exception {
+        return new FileSystemBlobs(this.dir)
+            .put(FlowAdapters.toFlowPublisher(this.data()))
+            .get();
+    }
+
+    /**
+     * Run benchmarks.
+     * @param args Command line arguments
+     * @throws RunnerException If fails
+     */
+    public static void main(final String... args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder().include(DigestedFlowBench.class.getSimpleName()).build()
+        ).run();
+    }
+
+    /**
+     * Blob data as flow of read-only chunks.
+     * @return Flow
+     */
+    private Flowable<ByteBuffer> data() {
+        return Flowable.range(0, this.mebibytes).map(idx -> this.chunk.asReadOnlyBuffer());
+    }
+
+    /**
+     * Channel of new file.
+     * @return File channel
+     * @throws IOException If fails
+     */
+    private FileChannel channel() throws IOException {
+        return FileChannel.open(
+            this.dir.resolve("data"), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        );
+    }
+
+    /**
+     * Write whole buffer to channel.
+     * @param chan Channel
+     * @param buf Buffer
+     * @throws IOException If fails
+     */
+    private static void write(final FileChannel chan, final ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            chan.write(buf);
+        }
+    }
+}
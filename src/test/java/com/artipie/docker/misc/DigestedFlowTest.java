@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.asto.Remaining;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.cactoos.io.BytesOf;
+import org.cactoos.text.HexOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Test case for {@link DigestedFlow}.
+ * @since 0.2
+ */
+final class DigestedFlowTest {
+
+    @Test
+    void calculatesDigestOfPassedData() throws Exception {
+        final DigestedFlow flow = new DigestedFlow(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap("hello ".getBytes(StandardCharsets.UTF_8)),
+                    ByteBuffer.wrap("world".getBytes(StandardCharsets.UTF_8))
+                )
+            )
+        );
+        Flowable.fromPublisher(FlowAdapters.toPublisher(flow)).blockingSubscribe();
+        MatcherAssert.assertThat(
+            flow.digest().get().digest(),
+            Matchers.equalTo("b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9")
+        );
+    }
+
+    @Test
+    void doesNotConsumeChunks() {
+        final byte[] data = {0x01, 0x02, 0x03};
+        MatcherAssert.assertThat(
+            new Remaining(
+                Flowable.fromPublisher(
+                    FlowAdapters.toPublisher(
+                        new DigestedFlow(
+                            FlowAdapters.toFlowPublisher(Flowable.just(ByteBuffer.wrap(data)))
+                        )
+                    )
+                ).blockingFirst()
+            ).bytes(),
+            Matchers.equalTo(data)
+        );
+    }
+
+    @Test
+    void hashesManyChunksInOrder() throws Exception {
+        final ByteBuffer[] chunks = new ByteBuffer[100];
+        final MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        for (int pos = 0; pos < chunks.length; ++pos) {
+            final byte[] data = String.valueOf(pos).getBytes(StandardCharsets.UTF_8);
+            sha.update(data);
+            chunks[pos] = ByteBuffer.wrap(data);
+        }
+        final DigestedFlow flow = new DigestedFlow(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(chunks)),
+            Executors.newSingleThreadExecutor(),
+            2
+        );
+        Flowable.fromPublisher(FlowAdapters.toPublisher(flow)).blockingSubscribe();
+        MatcherAssert.assertThat(
+            flow.digest().get().digest(),
+            Matchers.equalTo(new HexOf(new BytesOf(sha.digest())).asString())
+        );
+    }
+
+    @Test
+    void notifiesAboutHashedChunks() throws Exception {
+        final ByteBuffer first = ByteBuffer.wrap(new byte[]{0x01});
+        final ByteBuffer second = ByteBuffer.wrap(new byte[]{0x02});
+        final List<ByteBuffer> hashed = new CopyOnWriteArrayList<>();
+        final DigestedFlow flow = new DigestedFlow(
+            FlowAdapters.toFlowPublisher(Flowable.fromArray(first, second)), hashed::add
+        );
+        Flowable.fromPublisher(FlowAdapters.toPublisher(flow)).blockingSubscribe();
+        flow.digest().get();
+        MatcherAssert.assertThat(
+            hashed,
+            Matchers.contains(Matchers.sameInstance(first), Matchers.sameInstance(second))
+        );
+    }
+
+    @Test
+    void failsResultsWhenCancelled() {
+        final DigestedFlow flow = new DigestedFlow(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap(new byte[]{0x01}), ByteBuffer.wrap(new byte[]{0x02})
+                )
+            )
+        );
+        Flowable.fromPublisher(FlowAdapters.toPublisher(flow)).blockingFirst();
+        Assertions.assertThrows(
+            CancellationException.class,
+            () -> flow.digest().get(1, TimeUnit.MINUTES),
+            "Digest was not failed"
+        );
+        Assertions.assertThrows(
+            CancellationException.class,
+            () -> flow.size().get(1, TimeUnit.MINUTES),
+            "Size was not failed"
+        );
+    }
+}
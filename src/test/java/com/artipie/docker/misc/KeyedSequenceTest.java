@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link KeyedSequence}.
+ * @since 0.2
+ */
+final class KeyedSequenceTest {
+
+    @Test
+    void runsActionsWithSameKeyOneByOne() throws Exception {
+        final KeyedSequence<String> seq = new KeyedSequence<>();
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        final AtomicBoolean started = new AtomicBoolean();
+        seq.run("a", () -> first);
+        final CompletableFuture<Boolean> second = seq.run(
+            "a", () -> CompletableFuture.completedFuture(started.getAndSet(true))
+        );
+        MatcherAssert.assertThat("Second action started", started.get(), Matchers.is(false));
+        first.completeExceptionally(new IllegalStateException("fail"));
+        MatcherAssert.assertThat("Second action didn't run", second.get(), Matchers.is(false));
+    }
+
+    @Test
+    void runsActionsWithDifferentKeysIndependently() throws Exception {
+        final KeyedSequence<String> seq = new KeyedSequence<>();
+        seq.run("a", CompletableFuture::new);
+        MatcherAssert.assertThat(
+            seq.run("b", () -> CompletableFuture.completedFuture("b")).get(),
+            Matchers.equalTo("b")
+        );
+    }
+}
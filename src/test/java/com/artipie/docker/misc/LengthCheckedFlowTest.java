@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Test case for {@link LengthCheckedFlow}.
+ * @since 0.2
+ */
+final class LengthCheckedFlowTest {
+
+    @Test
+    void passesDataOfDeclaredLength() {
+        MatcherAssert.assertThat(
+            LengthCheckedFlowTest.read(
+                new LengthCheckedFlow(
+                    FlowAdapters.toFlowPublisher(
+                        Flowable.fromArray(ByteBuffer.allocate(2), ByteBuffer.allocate(1))
+                    ),
+                    3
+                )
+            ),
+            Matchers.equalTo(2)
+        );
+    }
+
+    @Test
+    void cancelsWhenLengthExceeded() {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> LengthCheckedFlowTest.read(
+                new LengthCheckedFlow(
+                    FlowAdapters.toFlowPublisher(
+                        Flowable.fromArray(ByteBuffer.allocate(2), ByteBuffer.allocate(2))
+                            .concatWith(Flowable.never())
+                            .doOnCancel(() -> cancelled.set(true))
+                    ),
+                    3
+                )
+            )
+        );
+        MatcherAssert.assertThat(cancelled.get(), Matchers.is(true));
+    }
+
+    @Test
+    void failsWhenDataIsShorter() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> LengthCheckedFlowTest.read(
+                new LengthCheckedFlow(
+                    FlowAdapters.toFlowPublisher(Flowable.fromArray(ByteBuffer.allocate(2))),
+                    3
+                )
+            )
+        );
+    }
+
+    /**
+     * Read all chunks of the flow.
+     * @param flow Flow
+     * @return Chunks count
+     */
+    private static int read(final LengthCheckedFlow flow) {
+        return Flowable.fromPublisher(FlowAdapters.toPublisher(flow))
+            .toList().blockingGet().size();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link LruCache}.
+ * @since 0.2
+ */
+final class LruCacheTest {
+
+    @Test
+    void loadsValueOnlyOnce() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(2);
+        final AtomicInteger loads = new AtomicInteger();
+        for (int cnt = 0; cnt < 3; ++cnt) {
+            cache.get(
+                "one",
+                key -> {
+                    loads.incrementAndGet();
+                    return CompletableFuture.completedFuture(key);
+                }
+            ).get();
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(2);
+        cache.get("a", key -> CompletableFuture.completedFuture("first")).get();
+        cache.get("b", key -> CompletableFuture.completedFuture("first")).get();
+        cache.get("a", key -> CompletableFuture.completedFuture("second")).get();
+        cache.get("c", key -> CompletableFuture.completedFuture("first")).get();
+        MatcherAssert.assertThat(
+            "Recently used value was evicted",
+            cache.get("a", key -> CompletableFuture.completedFuture("second")).get(),
+            Matchers.equalTo("first")
+        );
+        MatcherAssert.assertThat(
+            "Least recently used value was not evicted",
+            cache.get("b", key -> CompletableFuture.completedFuture("second")).get(),
+            Matchers.equalTo("second")
+        );
+    }
+
+    @Test
+    void doesNotCacheFailures() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(1);
+        cache.get("x", key -> CompletableFuture.failedFuture(new IllegalStateException()))
+            .exceptionally(err -> "");
+        MatcherAssert.assertThat(
+            cache.get("x", key -> CompletableFuture.completedFuture("ok")).get(),
+            Matchers.equalTo("ok")
+        );
+    }
+
+    @Test
+    void reloadsExpiredValues() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(1, Duration.ZERO);
+        cache.get("y", key -> CompletableFuture.completedFuture("old")).get();
+        MatcherAssert.assertThat(
+            cache.get("y", key -> CompletableFuture.completedFuture("new")).get(),
+            Matchers.equalTo("new")
+        );
+    }
+
+    @Test
+    void reloadsInvalidatedValues() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(1);
+        cache.get("z", key -> CompletableFuture.completedFuture("old")).get();
+        cache.invalidate("z");
+        MatcherAssert.assertThat(
+            cache.get("z", key -> CompletableFuture.completedFuture("new")).get(),
+            Matchers.equalTo("new")
+        );
+    }
+
+    @Test
+    void doesNotCacheValueLoadedBeforeInvalidation() throws Exception {
+        final LruCache<String, String> cache = new LruCache<>(1);
+        final CompletableFuture<String> stale = new CompletableFuture<>();
+        final CompletableFuture<String> loading = cache.get("w", key -> stale);
+        cache.invalidate("w");
+        stale.complete("old");
+        loading.get();
+        MatcherAssert.assertThat(
+            cache.get("w", key -> CompletableFuture.completedFuture("new")).get(),
+            Matchers.equalTo("new")
+        );
+    }
+}
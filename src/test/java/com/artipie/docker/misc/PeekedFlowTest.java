@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.asto.Remaining;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Test case for {@link PeekedFlow}.
+ * @since 0.2
+ */
+final class PeekedFlowTest {
+
+    @Test
+    void replaysFlowWhichFits() throws Exception {
+        final PeekedFlow flow = PeekedFlowTest.flow(3);
+        MatcherAssert.assertThat("Flow doesn't fit", flow.fits().get(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            "Wrong data",
+            new Remaining(new BytesFlowAs.Bytes(flow).future().get()).bytes(),
+            Matchers.equalTo(new byte[]{0x00, 0x01, 0x02})
+        );
+    }
+
+    @Test
+    void emitsHeadAndRestOfFlowWhichDoesNotFit() throws Exception {
+        final PeekedFlow flow = PeekedFlowTest.flow(1);
+        MatcherAssert.assertThat("Flow fits", flow.fits().get(), Matchers.is(false));
+        MatcherAssert.assertThat(
+            "Wrong data",
+            new Remaining(new BytesFlowAs.Bytes(flow).future().get()).bytes(),
+            Matchers.equalTo(new byte[]{0x00, 0x01, 0x02})
+        );
+    }
+
+    /**
+     * Peeked flow of three chunks.
+     * @param threshold Threshold
+     * @return Flow
+     */
+    private static PeekedFlow flow(final long threshold) {
+        return new PeekedFlow(
+            FlowAdapters.toFlowPublisher(
+                Flowable.fromArray(
+                    ByteBuffer.wrap(new byte[]{0x00}),
+                    ByteBuffer.wrap(new byte[]{0x01}),
+                    ByteBuffer.wrap(new byte[]{0x02})
+                )
+            ),
+            threshold
+        );
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import com.artipie.asto.Remaining;
+import io.reactivex.Flowable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.FlowAdapters;
+
+/**
+ * Test case for {@link RangeFlow}.
+ * @since 0.2
+ */
+final class RangeFlowTest {
+
+    @Test
+    void emitsRangeOfChunks() {
+        MatcherAssert.assertThat(
+            RangeFlowTest.read(
+                new RangeFlow(
+                    FlowAdapters.toFlowPublisher(
+                        Flowable.fromArray(
+                            ByteBuffer.wrap(new byte[]{0x00, 0x01}),
+                            ByteBuffer.wrap(new byte[]{0x02, 0x03, 0x04}),
+                            ByteBuffer.wrap(new byte[]{0x05, 0x06})
+                        )
+                    ),
+                    3, 3
+                )
+            ),
+            Matchers.equalTo(new byte[]{0x03, 0x04, 0x05})
+        );
+    }
+
+    @Test
+    void cancelsOriginAfterRange() {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        RangeFlowTest.read(
+            new RangeFlow(
+                FlowAdapters.toFlowPublisher(
+                    Flowable.just(ByteBuffer.wrap(new byte[]{0x00, 0x01}))
+                        .concatWith(Flowable.never())
+                        .doOnCancel(() -> cancelled.set(true))
+                ),
+                1, 1
+            )
+        );
+        MatcherAssert.assertThat(cancelled.get(), Matchers.is(true));
+    }
+
+    @Test
+    void truncatesRangeAtTheEnd() {
+        MatcherAssert.assertThat(
+            RangeFlowTest.read(
+                new RangeFlow(
+                    FlowAdapters.toFlowPublisher(
+                        Flowable.just(ByteBuffer.wrap(new byte[]{0x00, 0x01}))
+                    ),
+                    1, 10
+                )
+            ),
+            Matchers.equalTo(new byte[]{0x01})
+        );
+    }
+
+    /**
+     * Read all flow bytes.
+     * @param flow Flow
+     * @return Bytes
+     */
+    private static byte[] read(final RangeFlow flow) {
+        return new Remaining(
+            new BytesFlowAs.Bytes(flow).future().join()
+        ).bytes();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.artipie.docker.misc;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+import org.cactoos.text.HexOf;
+import org.cactoos.text.UncheckedText;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link Sha256State}.
+ * @since 0.2
+ */
+final class Sha256StateTest {
+
+    @Test
+    void hashesRestoredChunks() throws Exception {
+        for (final int size : new int[]{0, 1, 55, 56, 63, 64, 65, 128, 1000, 65_537}) {
+            Sha256StateTest.hashesBySize(size);
+        }
+    }
+
+    @Test
+    void keepsBufferPosition() {
+        final ByteBuffer buf = ByteBuffer.wrap(new byte[]{0x01, 0x02, 0x03});
+        final Sha256State sha = new Sha256State();
+        sha.update(buf);
+        MatcherAssert.assertThat(buf.remaining(), Matchers.equalTo(3));
+        MatcherAssert.assertThat(sha.length(), Matchers.equalTo(3L));
+    }
+
+    @Test
+    void failsOnInvalidState() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new Sha256State(new byte[]{0x00, 0x01})
+        );
+    }
+
+    /**
+     * Check digest of random data hashed by chunks with state restored after each one.
+     * @param size Data size
+     * @throws Exception If fails
+     */
+    private static void hashesBySize(final int size) throws Exception {
+        final byte[] data = new byte[size];
+        final Random rnd = new Random(size);
+        rnd.nextBytes(data);
+        Sha256State sha = new Sha256State();
+        int pos = 0;
+        while (pos < size) {
+            final int len = Math.min(size - pos, rnd.nextInt(100) + 1);
+            sha.update(ByteBuffer.wrap(data, pos, len));
+            sha = new Sha256State(sha.bytes());
+            pos += len;
+        }
+        MatcherAssert.assertThat(
+            sha.digest().digest(),
+            Matchers.equalTo(
+                new UncheckedText(
+                    new HexOf(MessageDigest.getInstance("SHA-256").digest(data))
+                ).asString()
+            )
+        );
+    }
+}
@@ -25,8 +25,10 @@
 package com.artipie.docker.ref;
 
 import com.artipie.docker.Digest;
+import java.util.Collections;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -49,4 +51,31 @@ public final class ManifestRefTest {
             Matchers.equalTo("tags/latest/current/link")
         );
     }
+
+    @Test
+    void acceptsLongestTag() {
+        final String tag = String.join("", Collections.nCopies(128, "a"));
+        MatcherAssert.assertThat(
+            new ManifestRef(tag).tag().get(),
+            Matchers.equalTo(tag)
+        );
+    }
+
+    @Test
+    void rejectsPathTraversalTag() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new ManifestRef("../../x").string()
+        );
+    }
+
+    @Test
+    void rejectsTooLongTag() {
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> new ManifestRef(
+                String.join("", Collections.nCopies(129, "a"))
+            ).tag()
+        );
+    }
 }